@@ -17,6 +17,7 @@ public abstract class Application {
   protected WindowWrapper window;
   public TextRenderer textRenderer;
   protected long prevFrameTime = 1;
+  protected double idleFrameTimeout = 0.5;
 
   protected String title = "Title";
 
@@ -64,9 +65,13 @@ public abstract class Application {
 
   private void loop() {
     while (!window.shouldClose()) {
+      if (isIdle()) {
+        GLFW.glfwWaitEventsTimeout(idleFrameTimeout);
+      }
       long frameStartTime = System.nanoTime();
       onFrame();
       window.swapBuffers();
+      OGLManager.endFrame();
       prevFrameTime = System.nanoTime() - frameStartTime;
     }
   }
@@ -79,4 +84,11 @@ public abstract class Application {
   }
 
   public abstract void onFrame();
+
+  /**
+   * @return whether nothing on screen changes until the next input event, so the next frame can wait for one
+   */
+  protected boolean isIdle() {
+    return false;
+  }
 }
@@ -31,7 +31,7 @@ public final class SimpleRenderer implements BufferRenderer {
   public void draw(Consumer<UniformSetter> uniformGetter) {
     program.use();
     vertexBuffer.bind(GL20C.GL_ARRAY_BUFFER);
-    program.applyVertexAttributes();
+    program.applyVertexAttributes(vertexBuffer.getOffset());
     Program.Uniform<?>[] uniforms = program.getUniforms();
     Object[] objects = new Object[uniforms.length];
 
@@ -56,7 +56,7 @@ public final class SimpleRenderer implements BufferRenderer {
 
     indexBuffer.bind(GL20C.GL_ELEMENT_ARRAY_BUFFER);
 
-    GL20C.glDrawElements(mode.getConstant(), indexCount, indexType.getConstant(), 0);
+    GL20C.glDrawElements(mode.getConstant(), indexCount, indexType.getConstant(), indexBuffer.getOffset());
 
     program.removeAttributes();
   }
@@ -46,7 +46,7 @@ public final class TessellatedRenderer implements BufferRenderer {
   public void draw(Consumer<UniformSetter> uniformGetter) {
     program.use();
     vertexBuffer.bind(GL20C.GL_ARRAY_BUFFER);
-    program.applyVertexAttributes();
+    program.applyVertexAttributes(vertexBuffer.getOffset());
 
     Program.Uniform<?>[] uniforms = program.getUniforms();
     Object[] objects = new Object[uniforms.length];
@@ -90,7 +90,8 @@ public final class TessellatedRenderer implements BufferRenderer {
 
     indexBuffer.bind(GL20C.GL_ELEMENT_ARRAY_BUFFER);
 
-    GL20C.glDrawElements(mode.getConstant(), lods[lod + 1] - lods[lod], indexType.getConstant(), (long) lods[lod] * indexType.getByteSize());
+    GL20C.glDrawElements(mode.getConstant(), lods[lod + 1] - lods[lod], indexType.getConstant(),
+                        indexBuffer.getOffset() + (long) lods[lod] * indexType.getByteSize());
 
     program.removeAttributes();
   }
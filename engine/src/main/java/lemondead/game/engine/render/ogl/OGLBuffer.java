@@ -9,14 +9,23 @@ import java.nio.ByteBuffer;
 public abstract class OGLBuffer {
   private final int size;
   protected final int bufferLocation;
+  private final int offset;
   protected boolean freed;
 
   protected OGLBuffer(int size, int bufferLocation) {
+    this(size, bufferLocation, 0);
+  }
+
+  /**
+   * @param offset where this section starts in the buffer object, in bytes
+   */
+  protected OGLBuffer(int size, int bufferLocation, int offset) {
     this.size = size;
     this.bufferLocation = bufferLocation;
+    this.offset = offset;
   }
 
-  private void checkFreed() {
+  protected void checkFreed() {
     if (freed) {
       throw new IllegalStateException("This buffer section has already been freed.");
     }
@@ -42,6 +51,10 @@ public abstract class OGLBuffer {
     return size;
   }
 
+  public int getOffset() {
+    return offset;
+  }
+
   public abstract void free();
 
   public static class MappedBuffer implements Closeable {
@@ -29,76 +29,19 @@ public class OGLManager {
       }
     };
   };
-  public static final OGLBufferAllocator STREAM_DRAW_ALLOCATOR = new OGLBufferAllocator() {
-    private final int buffer1;
-    private final int buffer2;
-    private boolean buffer1Free = true;
-    private boolean buffer2Free = true;
-
-    {
-      int oldBinding = GL20C.glGetInteger(GL20C.GL_ARRAY_BUFFER_BINDING);
-      buffer1 = GL20C.glGenBuffers();
-      GL20C.glBindBuffer(GL20C.GL_ARRAY_BUFFER, buffer1);
-      GL20C.glBufferData(GL20C.GL_ARRAY_BUFFER, 1024, GL20C.GL_DYNAMIC_DRAW);
-      buffer2 = GL20C.glGenBuffers();
-      GL20C.glBindBuffer(GL20C.GL_ARRAY_BUFFER, buffer2);
-      GL20C.glBufferData(GL20C.GL_ARRAY_BUFFER, 1024, GL20C.GL_DYNAMIC_DRAW);
-      GL20C.glBindBuffer(GL20C.GL_ARRAY_BUFFER, oldBinding);
-    }
-
-    @Override
-    public OGLBuffer create(int size) {
-      if (size > 1024 || !(buffer1Free || buffer2Free)) {
-        int oldBinding = GL20C.glGetInteger(GL20C.GL_ARRAY_BUFFER_BINDING);
-        int location = GL20C.glGenBuffers();
-        GL20C.glBindBuffer(GL20C.GL_ARRAY_BUFFER, location);
-        GL20C.glBufferData(GL20C.GL_ARRAY_BUFFER, size, GL20C.GL_STATIC_DRAW);
-        GL20C.glBindBuffer(GL20C.GL_ARRAY_BUFFER, oldBinding);
-        return new OGLBuffer(size, location) {
-          @Override
-          public void free() {
-            if (freed) {
-              RENDER_LOGGER.warning("This buffer has already been freed.");
-              return;
-            }
-            GL20C.glDeleteBuffers(bufferLocation);
-            freed = true;
-          }
-        };
-      }
-      if (buffer1Free) {
-        buffer1Free = false;
-        return new OGLBuffer(1024, buffer1) {
-          @Override
-          public void free() {
-            if (freed) {
-              RENDER_LOGGER.warning("This buffer has already been freed.");
-              return;
-            }
-            freed = true;
-            buffer1Free = true;
-          }
-        };
-      }
-      buffer2Free = false;
-      return new OGLBuffer(1024, buffer2) {
-        @Override
-        public void free() {
-          if (freed) {
-            RENDER_LOGGER.warning("This buffer has already been freed.");
-            return;
-          }
-          freed = true;
-          buffer2Free = true;
-        }
-      };
-    }
-  };
+  public static final StreamBufferAllocator STREAM_DRAW_ALLOCATOR = new StreamBufferAllocator(1 << 20);
 
   public static void init() {
     onFramebufferSizeCallback(800, 800);
   }
 
+  /**
+   * Called after the buffers are swapped.
+   */
+  public static void endFrame() {
+    STREAM_DRAW_ALLOCATOR.endFrame();
+  }
+
   public static void onFramebufferSizeCallback(int width, int height) {
     glViewport(0, 0, width, height);
   }
@@ -83,7 +83,13 @@ public final class Program {
   }
 
   public void applyVertexAttributes() {
-    int offset = 0;
+    applyVertexAttributes(0);
+  }
+
+  /**
+   * @param offset where the vertices start in the bound buffer, in bytes
+   */
+  public void applyVertexAttributes(long offset) {
     VertexFormat.VertexAttribute[] attributes = getVertexFormat().getAttributes();
     int vertexByteSize = getVertexFormat().getVertexByteSize();
     for (int i = 0; i < attributes.length; i++) {
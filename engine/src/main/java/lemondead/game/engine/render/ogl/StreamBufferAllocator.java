@@ -0,0 +1,167 @@
+package lemondead.game.engine.render.ogl;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL44C.*;
+
+/**
+ * Hands out write-only sections of one buffer for geometry that is drawn once. The buffer has a segment for every frame in
+ * flight, and a segment is written again only after the GPU has finished the frame that last read it. Sections stay valid
+ * until the frame after next ends, freeing them does nothing.
+ */
+public final class StreamBufferAllocator implements OGLBufferAllocator {
+  private static final int framesInFlight = 3;
+  private static final int alignment = 16;
+  private static final long fenceTimeout = 1_000_000_000L;
+
+  private final boolean fenced;
+  private final boolean persistent;
+  private final long[] fences = new long[framesInFlight];
+  private int segmentSize;
+  private int buffer;
+  private ByteBuffer mapped;
+  private int frame = 0;
+  private int head = 0;
+  private int overflow = 0;
+
+  public StreamBufferAllocator(int segmentSize) {
+    GLCapabilities capabilities = GL.getCapabilities();
+    fenced = capabilities.OpenGL32 || capabilities.GL_ARB_sync;
+    persistent = fenced && (capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage);
+    this.segmentSize = segmentSize;
+    allocateStorage();
+  }
+
+  private void allocateStorage() {
+    long capacity = (long) segmentSize * framesInFlight;
+    int oldBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+    buffer = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, buffer);
+    if (persistent) {
+      int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+      glBufferStorage(GL_ARRAY_BUFFER, capacity, flags);
+      mapped = glMapBufferRange(GL_ARRAY_BUFFER, 0, capacity, flags);
+      if (mapped == null) {
+        throw new RuntimeException("Could not map stream buffer: " + glGetError());
+      }
+    } else {
+      glBufferData(GL_ARRAY_BUFFER, capacity, GL_STREAM_DRAW);
+    }
+    glBindBuffer(GL_ARRAY_BUFFER, oldBinding);
+  }
+
+  @Override
+  public OGLBuffer create(int size) {
+    int offset = (head + alignment - 1) / alignment * alignment;
+    if (offset - segmentStart() + size > segmentSize) {
+      overflow += size;
+      return OGLManager.STATIC_DRAW_ALLOCATOR.create(size);
+    }
+    head = offset + size;
+    return new Section(size, buffer, offset);
+  }
+
+  private int segmentStart() {
+    return frame * segmentSize;
+  }
+
+  /**
+   * Moves on to the segment of the next frame, waiting until the GPU is done with it. Sections that didn't fit this frame
+   * make the buffer grow.
+   */
+  public void endFrame() {
+    if (fenced) {
+      fences[frame] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+    int used = head - segmentStart() + overflow;
+    frame = (frame + 1) % framesInFlight;
+    if (overflow > 0) {
+      for (int i = 0; i < framesInFlight; i++) {
+        awaitFence(i);
+      }
+      while (segmentSize < used) {
+        segmentSize *= 2;
+      }
+      OGLManager.RENDER_LOGGER.info("Growing stream buffer to " + segmentSize * framesInFlight + " bytes.");
+      free();
+      allocateStorage();
+      overflow = 0;
+    } else if (fenced) {
+      awaitFence(frame);
+    } else {
+      int oldBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+      glBindBuffer(GL_ARRAY_BUFFER, buffer);
+      glBufferData(GL_ARRAY_BUFFER, (long) segmentSize * framesInFlight, GL_STREAM_DRAW);
+      glBindBuffer(GL_ARRAY_BUFFER, oldBinding);
+    }
+    head = segmentStart();
+  }
+
+  private void awaitFence(int frame) {
+    long fence = fences[frame];
+    if (fence == 0) {
+      return;
+    }
+    int result;
+    do {
+      result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, fenceTimeout);
+    } while (result == GL_TIMEOUT_EXPIRED);
+    if (result == GL_WAIT_FAILED) {
+      OGLManager.RENDER_LOGGER.warning("Could not wait for stream buffer fence: " + glGetError());
+    }
+    glDeleteSync(fence);
+    fences[frame] = 0;
+  }
+
+  private void free() {
+    if (persistent) {
+      int oldBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+      glBindBuffer(GL_ARRAY_BUFFER, buffer);
+      glUnmapBuffer(GL_ARRAY_BUFFER);
+      glBindBuffer(GL_ARRAY_BUFFER, oldBinding);
+      mapped = null;
+    }
+    glDeleteBuffers(buffer);
+  }
+
+  private final class Section extends OGLBuffer {
+    private Section(int size, int bufferLocation, int offset) {
+      super(size, bufferLocation, offset);
+    }
+
+    @Override
+    public MappedBuffer map(int access) {
+      checkFreed();
+      if (persistent) {
+        ByteBuffer section = mapped.duplicate();
+        section.position(getOffset()).limit(getOffset() + size());
+        return new MappedBuffer(0, section.slice().order(ByteOrder.nativeOrder())) {
+          @Override
+          public void close() {
+          }
+        };
+      }
+      int oldBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+      bind(GL_ARRAY_BUFFER);
+      int flags = GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_RANGE_BIT | GL_MAP_UNSYNCHRONIZED_BIT;
+      ByteBuffer byteBuffer = glMapBufferRange(GL_ARRAY_BUFFER, getOffset(), size(), flags);
+      if (byteBuffer == null) {
+        throw new RuntimeException("Could not map buffer: " + glGetError());
+      }
+      return new MappedBuffer(oldBinding, byteBuffer);
+    }
+
+    @Override
+    public void free() {
+      if (freed) {
+        OGLManager.RENDER_LOGGER.warning("This buffer has already been freed.");
+        return;
+      }
+      freed = true;
+    }
+  }
+}
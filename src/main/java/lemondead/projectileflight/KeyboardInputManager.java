@@ -39,10 +39,30 @@ public class KeyboardInputManager extends AbstractKeyboardInputManager {
       Main.GAME_INSTANCE.resetWorld();
     }
   }, "binding.reset");
+  public static final KeyBinding SEEK_BACKWARD = new KeyBinding(() -> {
+    if (Main.GAME_INSTANCE.isInShowMode()) {
+      Main.GAME_INSTANCE.seek(-1);
+    }
+  }, "binding.seek_backward");
+  public static final KeyBinding SEEK_FORWARD = new KeyBinding(() -> {
+    if (Main.GAME_INSTANCE.isInShowMode()) {
+      Main.GAME_INSTANCE.seek(1);
+    }
+  }, "binding.seek_forward");
+  public static final KeyBinding PLAY_REPLAY = new KeyBinding(() -> {
+    if (Main.GAME_INSTANCE.isInShowMode()) {
+      Main.GAME_INSTANCE.toggleReplay();
+    }
+  }, "binding.play_replay");
   public static final KeyBinding CHANGE_MODE = new KeyBinding(() -> Main.GAME_INSTANCE.startModeChange(), "binding.change_mode");
   public static final KeyBinding SHOW_COLLISIONS = new KeyBinding("binding.show_collisions");
   public static final KeyBinding SHOW_VELOCITIES = new KeyBinding("binding.show_velocities");
   public static final KeyBinding SHOW_KEYBINDS = new KeyBinding(() -> Main.GAME_INSTANCE.showKeybinds ^= true, "binding.show_keybinds");
+  public static final KeyBinding CYCLE_PHYSICS_QUALITY = new KeyBinding(() -> {
+    if (Main.GAME_INSTANCE.isInShowMode()) {
+      Main.GAME_INSTANCE.setPhysicsQuality(Main.GAME_INSTANCE.level.getPhysicsConfig().getQuality().next());
+    }
+  }, "binding.cycle_physics_quality");
   public static final KeyBinding RESET_CAMERA = new KeyBinding(() -> Main.GAME_INSTANCE.moveCameraToOrigin(), "binding.move_camera_to_origin");
 
   public KeyboardInputManager(WindowWrapper window) {
@@ -59,10 +79,14 @@ public class KeyboardInputManager extends AbstractKeyboardInputManager {
     consumer.accept(SPEED_UP_PLAYBACK, Key.RIGHT);
     consumer.accept(SLOW_DOWN_PLAYBACK, Key.LEFT);
     consumer.accept(RESET, Key.R);
+    consumer.accept(SEEK_BACKWARD, Key.COMMA);
+    consumer.accept(SEEK_FORWARD, Key.PERIOD);
+    consumer.accept(PLAY_REPLAY, Key.P);
     consumer.accept(CHANGE_MODE, Key.ENTER);
     consumer.accept(SHOW_COLLISIONS, Key.H);
     consumer.accept(SHOW_VELOCITIES, Key.V);
     consumer.accept(SHOW_KEYBINDS, Key.ESCAPE);
     consumer.accept(RESET_CAMERA, Key.M);
+    consumer.accept(CYCLE_PHYSICS_QUALITY, Key.Q);
   }
 }
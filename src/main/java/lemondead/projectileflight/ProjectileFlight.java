@@ -21,22 +21,31 @@ import lemondead.projectileflight.level.LevelObject;
 import lemondead.projectileflight.level.ObjectRenderer;
 import lemondead.projectileflight.level.objects.Cannon;
 import lemondead.projectileflight.level.objects.Wall;
-import lemondead.projectileflight.utils.Quadruple;
-import org.jbox2d.callbacks.ContactImpulse;
-import org.jbox2d.callbacks.ContactListener;
-import org.jbox2d.collision.Manifold;
-import org.jbox2d.collision.WorldManifold;
-import org.jbox2d.collision.shapes.PolygonShape;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.FixtureDef;
-import org.jbox2d.dynamics.World;
-import org.jbox2d.dynamics.contacts.Contact;
+import lemondead.projectileflight.simulation.CollisionLog;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.PhysicsConfig;
+import lemondead.projectileflight.simulation.PhysicsQuality;
+import lemondead.projectileflight.simulation.PreSimulator;
+import lemondead.projectileflight.simulation.ReplayReader;
+import lemondead.projectileflight.simulation.ReplayRecorder;
+import lemondead.projectileflight.simulation.SimulationCache;
+import lemondead.projectileflight.simulation.SimulationRecord;
+import lemondead.projectileflight.simulation.SimulationRunner;
+import lemondead.projectileflight.simulation.StepPacer;
+import lemondead.projectileflight.simulation.Timeline;
+import lemondead.projectileflight.simulation.WorldSnapshot;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.opengl.GL20C;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -45,7 +54,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ProjectileFlight extends Application {
   public double cameraVelocityX = 0;
@@ -61,19 +72,38 @@ public class ProjectileFlight extends Application {
   public final AtomicBoolean paused = new AtomicBoolean(true);
   public final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
   public ScheduledFuture<?> worldFuture;
-  public static World world;
-  public static double worldTime;
-  public final List<Quadruple<Vec2, Vec2, Double, Body>> collisions = new ArrayList<>();
-  public volatile long lastUpdateTime = 0;
+  public StepPacer pacer;
+  public SimulationRunner simulation;
+  public Timeline timeline;
+  private long timelineHash;
+  private boolean timelineBranched;
+  public ReplayRecorder recorder;
+  private ReplayReader replay;
+  public PreSimulator preSimulator;
+  public SimulationCache simulationCache;
+  public volatile WorldSnapshot snapshot = WorldSnapshot.EMPTY;
   public final DecimalFormat framerateFormat = new DecimalFormat("0.0");
   public static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.##");
   public DecimalFormat timeFormat;
   public DecimalFormat distanceFormat;
 
   private boolean showFPS;
+  private boolean idleRendering;
+  private volatile boolean worldIdle = false;
+  private boolean adaptiveQuality;
+  private int overBudgetWakeups = 0;
+  private int checkpointInterval;
+  private long checkpointMemoryBudget;
+  private boolean recordReplays;
+  private Path replayDirectory;
+  private int preSimulatedVersion = -1;
+  private CollisionLog.Cursor collisionCursor = WorldSnapshot.EMPTY.getCollisions().cursor();
+  private final List<HitLabel> hitLabels = new ArrayList<>();
 
   private static final double cameraDamping = 0.00179701029;
   private static final double cameraDampingLog = Math.log(cameraDamping);
+  private static final double maxWakeupRate = 120;
+  private static final int overBudgetWakeupsToAdapt = 16;
 
   public final Configuration configuration = new Configuration("projectileflight.cfg");
 
@@ -86,8 +116,6 @@ public class ProjectileFlight extends Application {
 
   public boolean showKeybinds = true;
 
-  public Vec2 gravity;
-
   private final Object mutex = new Object();
 
   public ProjectileFlight() {
@@ -104,6 +132,12 @@ public class ProjectileFlight extends Application {
   protected void stop() {
     super.stop();
     executorService.shutdownNow();
+    if (preSimulator != null) {
+      preSimulator.shutdown();
+    }
+    synchronized (mutex) {
+      closeRecording();
+    }
   }
 
   @Override
@@ -161,6 +195,36 @@ public class ProjectileFlight extends Application {
     });
 
     showFPS = configuration.getValueParsed("debug.show_fps", "false", Boolean::parseBoolean);
+    idleRendering = configuration.getValueParsed("render.idle_when_settled", "true", Boolean::parseBoolean);
+    adaptiveQuality = configuration.getValueParsed("physics.adaptive_quality", "false", Boolean::parseBoolean);
+    checkpointInterval = configuration.getValueParsed("timeline.checkpoint_interval_ticks", "120", s -> {
+      int i = Integer.parseInt(s);
+      return i > 0 ? i : null;
+    });
+    checkpointMemoryBudget = configuration.getValueParsed("timeline.memory_budget_mb", "64", s -> {
+      long l = Long.parseLong(s);
+      return l > 0 ? l : null;
+    }) << 20;
+    recordReplays = configuration.getValueParsed("replay.record", "false", Boolean::parseBoolean);
+    replayDirectory = Paths.get(configuration.getValue("replay.directory", "replays", str -> !str.isEmpty()));
+    long cacheMemoryBudget = configuration.getValueParsed("cache.memory_budget_mb", "128", s -> {
+      long l = Long.parseLong(s);
+      return l >= 0 ? l : null;
+    }) << 20;
+    if (cacheMemoryBudget > 0) {
+      simulationCache = new SimulationCache(cacheMemoryBudget);
+    }
+    if (configuration.getValueParsed("presimulation.enabled", "true", Boolean::parseBoolean)) {
+      long debounceMillis = configuration.getValueParsed("presimulation.debounce_millis", "250", s -> {
+        long l = Long.parseLong(s);
+        return l >= 0 ? l : null;
+      });
+      double maxTime = configuration.getValueParsed("presimulation.max_time", "120", s -> {
+        double d = Double.parseDouble(s);
+        return d > 0 ? d : null;
+      });
+      preSimulator = new PreSimulator(debounceMillis, maxTime, checkpointInterval, checkpointMemoryBudget, simulationCache);
+    }
 
     Image icon16 = new Image("icons/icon_16.png", 4);
     Image icon32 = new Image("icons/icon_32.png", 4);
@@ -222,13 +286,12 @@ public class ProjectileFlight extends Application {
     hitRenderer = builder.upload(OGLManager.STATIC_DRAW_ALLOCATOR, ModelTransformer.IDENTITY);
 
     level = new Level();
+    level.setPhysicsConfig(PhysicsConfig.load(configuration));
     Cannon cannon = new Cannon();
     level.addObject(cannon, true);
+    Cannon.init();
     Wall.init();
 
-    double gravX = configuration.getValueParsed("physics.gravity_x", "0", Double::parseDouble);
-    double gravY = configuration.getValueParsed("physics.gravity_y", "-9.8", Double::parseDouble);
-    gravity = Vec2.of(gravX, gravY);
     initWorld();
 
     configuration.saveConfig();
@@ -255,11 +318,158 @@ public class ProjectileFlight extends Application {
     do {
       temp = paused.get();
     } while (!paused.compareAndSet(temp, !temp));
+    wakeWorldUpdate();
   }
 
+  /**
+   * Rewinds the timeline if the level hasn't changed since it was simulated, instead of building everything again.
+   */
   public void resetWorld() {
     paused.set(true);
-    initWorld();
+    if (replay != null) {
+      synchronized (mutex) {
+        seekReplay(0);
+      }
+      return;
+    }
+    if (timeline == null || level.contentHash() != timelineHash) {
+      initWorld();
+      return;
+    }
+    if (worldFuture != null) {
+      worldFuture.cancel(true);
+    }
+    synchronized (mutex) {
+      timeline.seek(0);
+      snapshot = simulation.snapshot(System.nanoTime(), 0);
+      restartRecording();
+    }
+    setPlaySpeedAndRescheduleWorldUpdate(playSpeed);
+  }
+
+  public void seek(double seconds) {
+    synchronized (mutex) {
+      if (replay != null) {
+        seekReplay(snapshot.getWorldTime() + seconds);
+      } else {
+        timeline.seekTime(simulation.getWorldTime() + seconds);
+        snapshot = simulation.snapshot(System.nanoTime(), 0);
+        if (recorder != null) {
+          recorder.record(snapshot);
+        }
+      }
+    }
+    wakeWorldUpdate();
+  }
+
+  /**
+   * Plays the newest replay recorded from the current level, or goes back to the simulation where it was left if one is
+   * playing already. Recording stops while a replay plays, so the run just seen can be replayed right away.
+   */
+  public void toggleReplay() {
+    synchronized (mutex) {
+      if (replay != null) {
+        replay = null;
+        snapshot = simulation.snapshot(System.nanoTime(), 0);
+        restartRecording();
+      } else {
+        closeRecording();
+        replay = findLatestReplay(timelineHash);
+        if (replay == null) {
+          Main.logger.info("No replay of this level in " + replayDirectory + ".");
+          restartRecording();
+        } else {
+          snapshot = replay.next().withTimestamp(System.nanoTime(), 0);
+          paused.set(false);
+        }
+      }
+    }
+    wakeWorldUpdate();
+  }
+
+  /**
+   * @return the newest replay in the replay directory that was recorded from a level with the hash, or null
+   */
+  private ReplayReader findLatestReplay(long levelHash) {
+    if (!Files.isDirectory(replayDirectory)) {
+      return null;
+    }
+    List<Path> paths;
+    try (Stream<Path> files = Files.list(replayDirectory)) {
+      paths = files.filter(path -> path.getFileName().toString().endsWith(".pfr"))
+                   .sorted(Comparator.reverseOrder())
+                   .collect(Collectors.toList());
+    } catch (IOException e) {
+      Main.logger.warning("Could not list replays: " + e);
+      return null;
+    }
+    for (Path path : paths) {
+      try {
+        ReplayReader reader = new ReplayReader(path);
+        if (reader.getLevelHash() == levelHash && reader.hasNext()) {
+          return reader;
+        }
+      } catch (IOException e) {
+        Main.logger.warning("Could not open replay: " + e);
+      }
+    }
+    return null;
+  }
+
+  private void advanceReplay(int steps, long now, double pendingTime) {
+    WorldSnapshot previous = snapshot;
+    WorldSnapshot frame = snapshot;
+    for (int i = 0; i < steps && replay.hasNext(); i++) {
+      previous = frame;
+      frame = replay.next();
+    }
+    snapshot = frame.withTimestamp(now, replay.hasNext() ? pendingTime : 0, previous);
+  }
+
+  /**
+   * Shows the first frame at or after the time, reading the replay from the start if the time is behind the current frame.
+   * Seeks made while recording are jumps back in the replay, so a time can occur in it more than once.
+   */
+  private void seekReplay(double worldTime) {
+    WorldSnapshot frame = snapshot;
+    if (worldTime < frame.getWorldTime()) {
+      replay.rewind();
+      frame = replay.next();
+    }
+    while (frame.getWorldTime() < worldTime && replay.hasNext()) {
+      frame = replay.next();
+    }
+    snapshot = frame.withTimestamp(System.nanoTime(), 0);
+  }
+
+  private void openRecording() {
+    try {
+      Files.createDirectories(replayDirectory);
+      Path path = replayDirectory.resolve("replay-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".pfr");
+      recorder = new ReplayRecorder(path, timelineHash);
+      recorder.record(snapshot);
+    } catch (IOException e) {
+      Main.logger.warning("Could not start replay recording: " + e);
+    }
+  }
+
+  private void restartRecording() {
+    closeRecording();
+    if (recordReplays) {
+      openRecording();
+    }
+  }
+
+  private void closeRecording() {
+    if (recorder == null) {
+      return;
+    }
+    try {
+      recorder.close();
+    } catch (IOException e) {
+      Main.logger.warning("Could not finish replay recording: " + e);
+    }
+    recorder = null;
   }
 
   public void removeSelectedObject() {
@@ -276,7 +486,7 @@ public class ProjectileFlight extends Application {
     paused.set(true);
     if (flattening) {
       flattening = false;
-      initWorld();
+      initWorld(preSimulator == null ? null : preSimulator.take(level));
     } else {
       flattening = true;
       level.reset();
@@ -299,80 +509,159 @@ public class ProjectileFlight extends Application {
     if (worldFuture != null) {
       worldFuture.cancel(false);
     }
-    worldFuture = executorService.scheduleAtFixedRate(() -> {
-      if (!paused.get()) {
+    StepPacer pacer = StepPacer.forSpeed(SimulationRunner.TIME_STEP, playSpeed.getSpeedCoefficient(), maxWakeupRate);
+    this.pacer = pacer;
+    AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+    Runnable update = () -> {
+      long now = System.nanoTime();
+      if (paused.get()) {
+        pacer.reset(now);
         synchronized (mutex) {
-          worldTime += 1 / 120f;
-          world.step(1 / 120f, 16, 8);
+          snapshot = snapshot.withTimestamp(now, 0);
+          goIdle(future.get());
+        }
+      } else {
+        int steps = pacer.advance(now, playSpeed.getSpeedCoefficient());
+        synchronized (mutex) {
+          if (replay != null) {
+            advanceReplay(steps, now, pacer.getAccumulator());
+            if (!replay.hasNext()) {
+              goIdle(future.get());
+            }
+            return;
+          }
+          long start = System.nanoTime();
+          WorldSnapshot previous = snapshot;
+          if (recorder == null) {
+            if (steps > 1) {
+              timeline.step(steps - 1);
+              previous = simulation.snapshot(now, 0);
+            }
+            if (steps > 0) {
+              timeline.step();
+            }
+          } else {
+            for (int i = 0; i < steps; i++) {
+              timeline.step();
+              WorldSnapshot recorded = simulation.snapshot(now, 0, previous);
+              recorder.record(recorded);
+              if (i < steps - 1) {
+                previous = recorded;
+              }
+            }
+          }
+          snapshot = steps == 0 ? snapshot.withTimestamp(now, pacer.getAccumulator())
+                                : simulation.snapshot(now, pacer.getAccumulator(), previous);
+          if (adaptiveQuality) {
+            adaptQuality(System.nanoTime() - start, pacer.getWakeupPeriod());
+          }
+          if (simulation.isSettled()) {
+            goIdle(future.get());
+          }
         }
       }
-      lastUpdateTime = System.nanoTime();
-    }, 0, (long) (1E+9 / playSpeed.getSpeedCoefficient() / 120), TimeUnit.NANOSECONDS);
+    };
+    synchronized (mutex) {
+      worldIdle = false;
+      worldFuture = executorService.scheduleAtFixedRate(update, 0, pacer.getWakeupPeriod(), TimeUnit.NANOSECONDS);
+      future.set(worldFuture);
+    }
   }
 
-  public void initWorld() {
-    if (worldFuture != null) {
-      worldFuture.cancel(true);
+  /**
+   * Switches the physics quality of the level. The running simulation goes on from where it is, the rest of its timeline is
+   * simulated again with the new profile.
+   */
+  public void setPhysicsQuality(PhysicsQuality quality) {
+    synchronized (mutex) {
+      level.setPhysicsConfig(level.getPhysicsConfig().withQuality(quality));
+      if (timeline != null) {
+        cacheTimeline();
+        simulation.setQuality(quality);
+        timeline = timeline.branch();
+        timelineBranched = true;
+      }
     }
+  }
 
-    collisions.clear();
-    worldTime = 0;
-
-    world = new World(new org.jbox2d.common.Vec2((float) gravity.x(), (float) gravity.y()));
-    BodyDef groundBodyDef = new BodyDef();
-    groundBodyDef.position.set(0, -10);
-    Body groundBody = world.createBody(groundBodyDef);
-    PolygonShape groundBox = new PolygonShape();
-    groundBox.setAsBox(1E+6f, 10);
-    FixtureDef fixtureDef = new FixtureDef();
-    fixtureDef.shape = groundBox;
-    fixtureDef.friction = 1;
-    groundBody.createFixture(fixtureDef);
-
-    level.collectBodies((body, fixture) -> {
-      Body body1 = world.createBody(body);
-      body1.createFixture(fixture);
-      return body1;
-    });
+  /**
+   * Lowers the quality once stepping has taken longer than the time between wakeups for a while, since then the simulation
+   * can't keep up with the play speed.
+   */
+  private void adaptQuality(long stepTime, long budget) {
+    overBudgetWakeups = stepTime > budget ? overBudgetWakeups + 1 : 0;
+    PhysicsQuality quality = simulation.getQuality();
+    if (overBudgetWakeups >= overBudgetWakeupsToAdapt && quality.lower() != quality) {
+      Main.logger.info("Stepping takes " + TimeUnit.NANOSECONDS.toMillis(stepTime) + " millis, lowering physics quality to " +
+                       quality.lower() + ".");
+      setPhysicsQuality(quality.lower());
+      overBudgetWakeups = 0;
+    }
+  }
 
-    world.setContactListener(new ContactListener() {
-      @Override
-      public void beginContact(Contact contact) {
-        Manifold manifold = contact.getManifold();
-        WorldManifold worldManifold = new WorldManifold();
-        contact.getWorldManifold(worldManifold);
-        double x = worldManifold.points[0].x;
-        double y = worldManifold.points[0].y;
-        if (manifold.pointCount == 2) {
-          x = (x + worldManifold.points[1].x) / 2;
-          y = (y + worldManifold.points[1].y) / 2;
-        }
-        Body body1 = contact.getFixtureA().getBody();
-        if (Math.abs(body1.getLinearVelocity().x * worldManifold.normal.x) + Math.abs(body1.getLinearVelocity().y * worldManifold.normal.y) > 2) {
-          collisions.add(new Quadruple<>(Vec2.of(x, y), Vec2.of(worldManifold.normal.x, worldManifold.normal.y), worldTime, body1));
-        }
-        Body body2 = contact.getFixtureB().getBody();
-        if (Math.abs(body2.getLinearVelocity().x * worldManifold.normal.x) + Math.abs(body2.getLinearVelocity().y * worldManifold.normal.y) > 2) {
-          collisions.add(new Quadruple<>(Vec2.of(x, y), Vec2.of(worldManifold.normal.x, worldManifold.normal.y), worldTime, body2));
-        }
-      }
+  /**
+   * Stops the world update while it is paused or every body sleeps, since then nothing changes until the user does something.
+   * Must hold the mutex, so a replaced update can't mark the new one idle.
+   */
+  private void goIdle(ScheduledFuture<?> future) {
+    if (future == worldFuture) {
+      worldIdle = true;
+      future.cancel(false);
+    }
+  }
 
-      @Override
-      public void endContact(Contact contact) {
-      }
+  private void wakeWorldUpdate() {
+    if (worldIdle && !isInEditMode() && !flattening) {
+      setPlaySpeedAndRescheduleWorldUpdate(playSpeed);
+    }
+  }
 
-      @Override
-      public void preSolve(Contact contact, Manifold oldManifold) {
-      }
+  @Override
+  protected boolean isIdle() {
+    return idleRendering && (paused.get() || worldIdle) && cameraVelocityX == 0 && cameraVelocityY == 0 && !mouse.isPressed() &&
+           flatten == (flattening ? 1 : 0);
+  }
+
+  public void initWorld() {
+    initWorld(null);
+  }
 
-      @Override
-      public void postSolve(Contact contact, ContactImpulse impulse) {
+  private void initWorld(Timeline presimulated) {
+    if (worldFuture != null) {
+      worldFuture.cancel(true);
+    }
+
+    synchronized (mutex) {
+      cacheTimeline();
+      long contentHash = level.contentHash();
+      SimulationRecord cached = simulationCache != null ? simulationCache.get(contentHash) : null;
+      simulation = new SimulationRunner(level);
+      if (presimulated != null) {
+        timeline = presimulated.fork(simulation);
+      } else if (cached != null) {
+        timeline = new Timeline(cached, simulation);
+      } else {
+        timeline = new Timeline(simulation, checkpointInterval, checkpointMemoryBudget);
       }
-    });
+      timelineHash = contentHash;
+      timelineBranched = false;
+      replay = null;
+      snapshot = simulation.snapshot(System.nanoTime(), 0);
+      restartRecording();
+    }
 
     setPlaySpeedAndRescheduleWorldUpdate(playSpeed);
   }
 
+  /**
+   * Keeps what the current timeline has simulated so far, unless part of it ran with another physics quality than the rest.
+   */
+  private void cacheTimeline() {
+    if (simulationCache != null && timeline != null && !timelineBranched) {
+      simulationCache.put(timelineHash, timeline.record());
+    }
+  }
+
   public static float getGridSize(double scale) {
     if (scale <= 10) {
       return 1;
@@ -408,8 +697,8 @@ public class ProjectileFlight extends Application {
     return 20;
   }
 
-  public static World getWorld() {
-    return world;
+  public PhysicsBackend getPhysicsBackend() {
+    return simulation.getBackend();
   }
 
   @Override
@@ -424,6 +713,11 @@ public class ProjectileFlight extends Application {
 
     mouse.onMousePos(mousePos.x() / windowSize.x() * screenSize.x(), mousePos.y() / windowSize.y() * screenSize.y());
 
+    if (flattening && preSimulator != null && level.getModificationCount() != preSimulatedVersion) {
+      preSimulatedVersion = level.getModificationCount();
+      preSimulator.schedule(level);
+    }
+
     if (flattening) {
       flatten = MathUtil.clamp(0, flatten + deltaSeconds * 4, 1);
     } else {
@@ -453,19 +747,14 @@ public class ProjectileFlight extends Application {
 
     TextRenderer.FontSize fontSize = TextRenderer.FontSize.PT_18;
 
-    double worldTime;
+    WorldSnapshot snapshot = this.snapshot;
+    double worldTime = snapshot.getWorldTime();
+    double timeAfterTick = (System.nanoTime() - snapshot.getTimestamp()) * 1E-9 * playSpeed.getSpeedCoefficient() + snapshot.getPendingTime();
+    double tickFraction = paused.get() ? 1 : Math.min(timeAfterTick / SimulationRunner.TIME_STEP, 1);
 
     List<ObjectRenderer> renderers = new ArrayList<>();
-    List<Quadruple<Vec2, Vec2, Double, Body>> collisions;
-
-    double timeAfterTick;
-
-    synchronized (mutex) {
-      worldTime = ProjectileFlight.worldTime;
-      timeAfterTick = paused.get() ? 0 : (System.nanoTime() - lastUpdateTime) * 1E-9 * playSpeed.getSpeedCoefficient();
-      level.draw(camera.getFrustumBoundingRect(camera.getPos().z()).extend(0.5), renderers);
-      collisions = new ArrayList<>(this.collisions);
-    }
+    level.draw(camera.getFrustumBoundingRect(camera.getPos().z()).extend(0.5), snapshot, renderers);
+    updateHitLabels(snapshot);
 
     Vec4 flatColor = Vec4.of(0, 0, 0, smoothFlatten);
     Vec4 color = Vec4.of(0, 0, 0, 1 - smoothFlatten);
@@ -528,25 +817,19 @@ public class ProjectileFlight extends Application {
 
         Mat4 screenMatrix = camera.getScreenMatrix();
         if (keyboard.isPressed(KeyboardInputManager.SHOW_COLLISIONS)) {
-          for (Quadruple<Vec2, Vec2, Double, Body> c : collisions) {
-            double x = c.getObject1().x();
-            double y = c.getObject1().y();
-            double t = c.getObject3();
-            Vec2 screenSpace = camera.toScreenSpace(Vec3.of(x, y, 0));
+          for (HitLabel label : hitLabels) {
+            Vec2 screenSpace = camera.toScreenSpace(Vec3.of(label.x, label.y, 0));
             hitRenderer.draw(uniformSetter -> {
               uniformSetter
                   .setUniform(Program.Uniform.TRANSFORM_MATRIX, screenMatrix.multiply(Mat4.translate(screenSpace.x(), screenSpace.y(), 0)));
               uniformSetter.setUniform(Program.Uniform.TINT, color);
             });
-            String str = "Y " + DECIMAL_FORMAT.format(y);
             TextRenderer text = Main.GAME_INSTANCE.textRenderer;
-            text.drawString(str, screenSpace.add(0, 20), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
+            text.drawString(label.yLabel, screenSpace.add(0, 20), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
                             TextRenderer.Alignment.CENTERED, camera);
-            String str1 = "X " + DECIMAL_FORMAT.format(x);
-            text.drawString(str1, screenSpace.add(0, 36), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
+            text.drawString(label.xLabel, screenSpace.add(0, 36), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
                             TextRenderer.Alignment.CENTERED, camera);
-            String str2 = "t " + DECIMAL_FORMAT.format(t);
-            text.drawString(str2, screenSpace.add(0, 52), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
+            text.drawString(label.timeLabel, screenSpace.add(0, 52), Vec4.of(0, 0, 0, color.w() * 0.5), TextRenderer.FontSize.PT_11,
                             TextRenderer.Alignment.CENTERED, camera);
           }
         }
@@ -563,22 +846,38 @@ public class ProjectileFlight extends Application {
         renderers.forEach(r -> r.renderFlat(drawPass, camera, flatColor));
       }
       if (smoothFlatten < 1) {
-        renderers.forEach(r -> r.render(drawPass, camera, color, timeAfterTick));
+        renderers.forEach(r -> r.render(drawPass, camera, color, tickFraction));
       }
     });
   }
 
+  private void updateHitLabels(WorldSnapshot snapshot) {
+    CollisionLog collisions = snapshot.getCollisions();
+    if (collisionCursor.getLog() != collisions || collisionCursor.getPosition() > snapshot.getCollisionCount()) {
+      collisionCursor = collisions.cursor();
+      hitLabels.clear();
+    }
+    while (collisionCursor.getPosition() < snapshot.getCollisionCount()) {
+      int i = collisionCursor.next();
+      hitLabels.add(new HitLabel(collisions.getX(i), collisions.getY(i), collisions.getTime(i)));
+    }
+  }
+
   public void drawOverlay(long frameTime, double worldTime) {
     Vec2 screenSize = OGLManager.getViewportSize();
     if (showFPS) {
       textRenderer.drawString(framerateFormat.format(1E+9 / (double) frameTime), Vec2.of(10, screenSize.y() - 10), Vec4.of(0, 0, 0, 1),
                               TextRenderer.FontSize.PT_22, TextRenderer.Alignment.LEFT, camera);
+      textRenderer.drawString("dropped " + pacer.getDroppedTicks() + " late " + pacer.getLateWakeups(), Vec2.of(10, screenSize.y() - 40),
+                              Vec4.of(0, 0, 0, 1), TextRenderer.FontSize.PT_14, TextRenderer.Alignment.LEFT, camera);
     }
     double smoothFlatten = MathUtil.smoothStep(1 - flatten);
     textRenderer.drawString("t = " + timeFormat.format(worldTime), Vec2.of(screenSize.x() / 2, screenSize.y() - 32),
                             Vec4.of(0, 0, 0, 0.5f * smoothFlatten), TextRenderer.FontSize.PT_18, TextRenderer.Alignment.CENTERED, camera);
     textRenderer.drawString(playSpeed.getName(), Vec2.of(screenSize.x() - 10, screenSize.y() - 32),
                             Vec4.of(0, 0, 0, 0.5f * smoothFlatten), TextRenderer.FontSize.PT_18, TextRenderer.Alignment.RIGHT, camera);
+    textRenderer.drawString(level.getPhysicsConfig().getQuality().name(), Vec2.of(screenSize.x() - 10, screenSize.y() - 56),
+                            Vec4.of(0, 0, 0, 0.5f * smoothFlatten), TextRenderer.FontSize.PT_14, TextRenderer.Alignment.RIGHT, camera);
 
     if (showKeybinds) {
       guiSquare.draw(setter -> {
@@ -596,6 +895,22 @@ public class ProjectileFlight extends Application {
     }
   }
 
+  private static class HitLabel {
+    private final double x;
+    private final double y;
+    private final String xLabel;
+    private final String yLabel;
+    private final String timeLabel;
+
+    private HitLabel(double x, double y, double time) {
+      this.x = x;
+      this.y = y;
+      xLabel = "X " + DECIMAL_FORMAT.format(x);
+      yLabel = "Y " + DECIMAL_FORMAT.format(y);
+      timeLabel = "t " + DECIMAL_FORMAT.format(time);
+    }
+  }
+
   public enum PlaySpeed {
     X00015625(0.015625, "x0.015625"),
     X003125(0.03125, "x0.03125"),
@@ -4,15 +4,19 @@ import lemondead.game.engine.render.Camera;
 import lemondead.game.engine.util.BoundingRect;
 import lemondead.game.engine.util.vector.Vec2;
 import lemondead.projectileflight.level.LevelObject.Control;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.FixtureDef;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.PhysicsConfig;
+import lemondead.projectileflight.simulation.WorldSnapshot;
+import lemondead.projectileflight.utils.ContentHash;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Stack;
-import java.util.function.BiFunction;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -20,12 +24,15 @@ public class Level {
   final List<LevelObject> objects = new ArrayList<>();
   LevelObject selected = null;
   Control dragging = null;
+  int modificationCount = 0;
+  final SpatialIndex index = new SpatialIndex();
+  private PhysicsConfig physicsConfig = PhysicsConfig.DEFAULT;
 
-  public void draw(BoundingRect visible, List<ObjectRenderer> renderers) {
-    for (LevelObject object : objects) {
-      for (BoundingRect rect : object.getCullingRects()) {
+  public void draw(BoundingRect visible, WorldSnapshot snapshot, List<ObjectRenderer> renderers) {
+    for (LevelObject object : index.query(visible, false, true)) {
+      for (BoundingRect rect : object.getCullingRects(snapshot)) {
         if (visible.intersects(rect)) {
-          renderers.add(object.getRenderer());
+          renderers.add(object.getRenderer(snapshot, visible));
           break;
         }
       }
@@ -33,17 +40,18 @@ public class Level {
   }
 
   public void onMouseClick(Vec2 screenPos, Camera camera) {
-    for (LevelObject object : objects) {
+    for (LevelObject object : index.query(pickRect(screenPos, camera), true, false)) {
       for (Control control : object.getControls()) {
         if (control.onClick(screenPos, camera)) {
           return;
         }
       }
     }
+    selected = null;
   }
 
   public Optional<Control> onMouseDrag(Vec2 screenPos, Camera camera) {
-    for (LevelObject object : objects) {
+    for (LevelObject object : index.query(pickRect(screenPos, camera), true, false)) {
       for (Control control : object.getControls()) {
         if (control.startDragging(screenPos, camera)) {
           dragging = control;
@@ -54,6 +62,14 @@ public class Level {
     return Optional.empty();
   }
 
+  private static final double pickTolerance = 32;
+
+  private static BoundingRect pickRect(Vec2 screenPos, Camera camera) {
+    Vec2 world = camera.fromScreenSpace(screenPos);
+    double radius = camera.fromScreenSpace(screenPos.add(pickTolerance, pickTolerance)).subtract(world).length();
+    return BoundingRect.withCenter(world.x(), world.y(), radius * 2, radius * 2);
+  }
+
   public boolean addObject(LevelObject object, boolean correctPos) {
     if (correctPos) {
       Optional<Vec2> optional = getPosition(object.getPos(), object.getBoundingRect(), levelObject -> true);
@@ -64,90 +80,187 @@ public class Level {
     }
     objects.add(object);
     object.level = this;
+    index.add(object);
+    modificationCount++;
     return true;
   }
 
   public void removeObject(LevelObject object) {
     object.unselect();
     objects.remove(object);
+    index.remove(object);
     object.level = null;
+    modificationCount++;
+  }
+
+  public List<LevelObject> getObjects() {
+    return Collections.unmodifiableList(objects);
+  }
+
+  public Level copy() {
+    Level copy = new Level();
+    copy.physicsConfig = physicsConfig;
+    for (LevelObject object : objects) {
+      copy.addObject(object.copy(), false);
+    }
+    return copy;
+  }
+
+  public long contentHash() {
+    long hash = physicsConfig.contentHash(ContentHash.SEED);
+    for (LevelObject object : objects) {
+      hash = ContentHash.mix(hash, object.getClass().getName().hashCode());
+      hash = object.contentHash(hash);
+    }
+    return hash;
   }
 
   public LevelObject getSelected() {
     return selected;
   }
 
+  public PhysicsConfig getPhysicsConfig() {
+    return physicsConfig;
+  }
+
+  public void setPhysicsConfig(PhysicsConfig physicsConfig) {
+    this.physicsConfig = physicsConfig;
+    modificationCount++;
+  }
+
+  public int getModificationCount() {
+    return modificationCount;
+  }
+
   private static final BoundingRect floorRect = new BoundingRect(-10E8, -10E8, 10E8, 0);
 
   public Stream<BoundingRect> intersectsObject(BoundingRect rect, Predicate<LevelObject> filter) {
     return Stream
-        .concat(objects.stream().filter(filter).map(o -> o.getBoundingRect().translate(o.getPos())), Stream.of(floorRect))
+        .concat(index.query(rect, false, false).stream().filter(filter).map(index::getBounds), Stream.of(floorRect))
         .filter(r -> r.intersects(rect));
   }
 
-  public Optional<Vec2> getPosition(Vec2 startPosition, BoundingRect maxRect, Predicate<LevelObject> filter) {
-    BestPos pos = new BestPos(startPosition);
-    List<BoundingRect> allRects = new ArrayList<>(objects.size() + 1);
-    allRects.add(floorRect);
-    for (LevelObject object : objects) {
-      if (filter.test(object)) {
-        allRects.add(object.getBoundingRect().translate(object.getPos()));
-      }
-    }
-    correctPos(startPosition, maxRect, new Stack<>(), pos, allRects, 0);
-    return Optional.ofNullable(pos.currentBest);
-  }
+  private static final int maxPlacementCandidates = 4096;
 
-  private static final int maxDepth = 8;
+  private static final int maxProbeSteps = 64;
+
+  private static final int maxSeparatePushes = 4;
+
+  private static final long placementBudgetNanos = 2_000_000;
 
   private static final double maxDistanceSq = 2000 * 2000;
 
-  private void correctPos(Vec2 currentPos, BoundingRect maxRect, Stack<BoundingRect> prevRects, BestPos bestPos, List<BoundingRect> allRects,
-                          int depth) {
-    BoundingRect translated = maxRect.translate(currentPos);
-    Optional<BoundingRect> intersecting = allRects.stream().filter(r -> r.intersects(translated)).findAny();
-    if (intersecting.isPresent()) {
-      if (bestPos.foundPosisions >= bestPos.maxFoundPosisions || bestPos.isWorse(currentPos) || depth > maxDepth) {
-        return;
+  /**
+   * Finds a free position near the start. Straight probes in each direction give a first answer, then candidates closer than
+   * it are expanded best-first by distance within a time budget. Every candidate that overlaps something spawns the
+   * positions that clear all of the overlapping rects above, to the left, to the right and below, and, when only a few
+   * overlap, the positions that clear each of them separately.
+   */
+  public Optional<Vec2> getPosition(Vec2 startPosition, BoundingRect maxRect, Predicate<LevelObject> filter) {
+    long deadline = System.nanoTime() + placementBudgetNanos;
+    Vec2 best = null;
+    double bestDistanceSq = maxDistanceSq;
+    for (int direction = 0; direction < 4; direction++) {
+      Vec2 free = probe(startPosition, maxRect, filter, direction);
+      if (free != null && free.distanceToSq(startPosition) <= bestDistanceSq) {
+        best = free;
+        bestDistanceSq = free.distanceToSq(startPosition);
       }
-      BoundingRect rect = intersecting.get();
-      if (prevRects.contains(rect)) {
-        return;
+    }
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distanceSq));
+    Set<Vec2> visited = new HashSet<>();
+    List<BoundingRect> overlapping = new ArrayList<>();
+    queue.add(new Candidate(startPosition, 0));
+    visited.add(startPosition);
+    for (int expanded = 0; !queue.isEmpty() && expanded < maxPlacementCandidates && System.nanoTime() < deadline; expanded++) {
+      Candidate candidate = queue.poll();
+      if (candidate.distanceSq >= bestDistanceSq) {
+        break;
+      }
+      BoundingRect translated = maxRect.translate(candidate.pos);
+      overlapping.clear();
+      BoundingRect overlap = overlap(translated, filter, overlapping);
+      boolean onFloor = floorRect.intersects(translated);
+      if (overlap == null && !onFloor) {
+        return Optional.of(candidate.pos);
+      }
+      if (overlapping.size() > 1 && overlapping.size() <= maxSeparatePushes) {
+        for (BoundingRect rect : overlapping) {
+          for (int direction = 0; direction < 4; direction++) {
+            offer(queue, visited, startPosition, push(candidate.pos, maxRect, rect, onFloor, direction), bestDistanceSq);
+          }
+        }
+      }
+      for (int direction = 0; direction < 4; direction++) {
+        offer(queue, visited, startPosition, push(candidate.pos, maxRect, overlap, onFloor, direction), bestDistanceSq);
       }
-      prevRects.push(rect);
-      correctPos(Vec2.of(currentPos.x(), rect.maxY - maxRect.minY), maxRect, prevRects, bestPos, allRects, depth + 1); //Top
-      correctPos(Vec2.of(rect.minX - maxRect.maxX, currentPos.y()), maxRect, prevRects, bestPos, allRects, depth + 1); //Left
-      correctPos(Vec2.of(rect.maxX - maxRect.minX, currentPos.y()), maxRect, prevRects, bestPos, allRects, depth + 1); //Right
-      correctPos(Vec2.of(currentPos.x(), rect.minY - maxRect.maxY), maxRect, prevRects, bestPos, allRects, depth + 1); //Bottom
-      prevRects.pop();
-    } else {
-      bestPos.replaceIfBetter(currentPos);
     }
+    return Optional.ofNullable(best);
   }
 
-  private static class BestPos {
-    private final Vec2 startPos;
-    private Vec2 currentBest;
-    private double currentDisSq;
-    private final int maxFoundPosisions = 8;
-    private int foundPosisions = 0;
+  private Vec2 probe(Vec2 start, BoundingRect maxRect, Predicate<LevelObject> filter, int direction) {
+    Vec2 pos = start;
+    for (int step = 0; step < maxProbeSteps && pos.distanceToSq(start) <= maxDistanceSq; step++) {
+      BoundingRect translated = maxRect.translate(pos);
+      BoundingRect overlap = overlap(translated, filter, null);
+      boolean onFloor = floorRect.intersects(translated);
+      if (overlap == null && !onFloor) {
+        return pos;
+      }
+      Vec2 next = push(pos, maxRect, overlap, onFloor, overlap == null ? 0 : direction);
+      if (next == null || next.equals(pos)) {
+        return null;
+      }
+      pos = next;
+    }
+    return null;
+  }
 
-    private BestPos(Vec2 startPos) {
-      this.startPos = startPos;
+  private BoundingRect overlap(BoundingRect rect, Predicate<LevelObject> filter, List<BoundingRect> overlapping) {
+    BoundingRect overlap = null;
+    for (LevelObject object : index.query(rect, false, false)) {
+      if (filter.test(object)) {
+        BoundingRect bounds = index.getBounds(object);
+        if (overlapping != null) {
+          overlapping.add(bounds);
+        }
+        overlap = overlap == null ? bounds : overlap.unite(bounds);
+      }
     }
+    return overlap;
+  }
 
-    public void replaceIfBetter(Vec2 vec2) {
-      double dis = vec2.distanceToSq(startPos);
-      if (currentBest == null || dis < currentDisSq) {
-        currentBest = vec2;
-        currentDisSq = dis;
+  private static void offer(PriorityQueue<Candidate> queue, Set<Vec2> visited, Vec2 startPosition, Vec2 pos, double limitSq) {
+    if (pos != null) {
+      double distanceSq = pos.distanceToSq(startPosition);
+      if (distanceSq < limitSq && visited.add(pos)) {
+        queue.add(new Candidate(pos, distanceSq));
       }
-      foundPosisions++;
     }
+  }
+
+  private static Vec2 push(Vec2 pos, BoundingRect maxRect, BoundingRect overlap, boolean onFloor, int direction) {
+    switch (direction) {
+      case 0:
+        double top = Math.max(onFloor ? floorRect.maxY : Double.NEGATIVE_INFINITY,
+                              overlap == null ? Double.NEGATIVE_INFINITY : overlap.maxY);
+        return Vec2.of(pos.x(), top - maxRect.minY);
+      case 1:
+        return overlap == null ? null : Vec2.of(overlap.minX - maxRect.maxX, pos.y());
+      case 2:
+        return overlap == null ? null : Vec2.of(overlap.maxX - maxRect.minX, pos.y());
+      default:
+        return overlap == null || onFloor ? null : Vec2.of(pos.x(), overlap.minY - maxRect.maxY);
+    }
+  }
+
+  private static class Candidate {
+    private final Vec2 pos;
+    private final double distanceSq;
 
-    public boolean isWorse(Vec2 vec2) {
-      double dis = vec2.distanceToSq(startPos);
-      return dis > maxDistanceSq || (currentBest != null && dis > currentDisSq);
+    private Candidate(Vec2 pos, double distanceSq) {
+      this.pos = pos;
+      this.distanceSq = distanceSq;
     }
   }
 
@@ -155,7 +268,7 @@ public class Level {
     objects.forEach(LevelObject::reset);
   }
 
-  public void collectBodies(BiFunction<BodyDef, FixtureDef, Body> function) {
-    objects.forEach(o -> o.initBodies(function));
+  public void collectBodies(PhysicsBackend backend) {
+    objects.forEach(o -> o.initBodies(backend));
   }
 }
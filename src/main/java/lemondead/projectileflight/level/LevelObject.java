@@ -3,14 +3,12 @@ package lemondead.projectileflight.level;
 import lemondead.game.engine.render.Camera;
 import lemondead.game.engine.util.BoundingRect;
 import lemondead.game.engine.util.vector.Vec2;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.FixtureDef;
-
-import java.util.function.BiFunction;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.WorldSnapshot;
 
 public abstract class LevelObject {
   Level level;
+  SpatialIndex.Entry indexEntry;
   protected Vec2 pos = Vec2.ZERO;
 
   protected LevelObject() {
@@ -41,11 +39,22 @@ public abstract class LevelObject {
     return level;
   }
 
-  public abstract void initBodies(BiFunction<BodyDef, FixtureDef, Body> function);
+  public abstract void initBodies(PhysicsBackend backend);
+
+  public abstract LevelObject copy();
+
+  public abstract long contentHash(long hash);
 
   protected abstract void reset();
 
-  public abstract ObjectRenderer getRenderer();
+  public abstract ObjectRenderer getRenderer(WorldSnapshot snapshot);
+
+  /**
+   * @param visible area being drawn, objects made of many parts may leave out the parts outside of it
+   */
+  public ObjectRenderer getRenderer(WorldSnapshot snapshot, BoundingRect visible) {
+    return getRenderer(snapshot);
+  }
 
   public Control[] getControls() {
     return new Control[0];
@@ -59,9 +68,31 @@ public abstract class LevelObject {
 
   public void setPos(Vec2 pos) {
     this.pos = pos;
+    markChanged();
+  }
+
+  protected void markChanged() {
+    if (level != null) {
+      level.modificationCount++;
+      level.index.update(this);
+    }
+  }
+
+  /**
+   * @return the area, relative to the position, in which controls may react to the mouse
+   */
+  protected BoundingRect getControlRect() {
+    return getBoundingRect();
+  }
+
+  /**
+   * @return whether {@link #getCullingRects} may reach beyond the bounding rect, so the object can't be culled by position alone
+   */
+  protected boolean hasDynamicCullingRects() {
+    return false;
   }
 
-  public BoundingRect[] getCullingRects() {
+  public BoundingRect[] getCullingRects(WorldSnapshot snapshot) {
     return new BoundingRect[] { getBoundingRect().translate(getPos()) };
   }
 
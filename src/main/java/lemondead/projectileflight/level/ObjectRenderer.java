@@ -5,7 +5,10 @@ import lemondead.game.engine.render.ogl.DrawPass;
 import lemondead.game.engine.util.vector.Vec4;
 
 public interface ObjectRenderer {
-  void render(DrawPass pass, Camera camera, Vec4 color, double timeAfterUpdate);
+  /**
+   * @param tickFraction how far the frame is between the previous tick and the snapshot's, 1 draws the snapshot as it is
+   */
+  void render(DrawPass pass, Camera camera, Vec4 color, double tickFraction);
 
   void renderFlat(DrawPass pass, Camera camera, Vec4 color);
 }
@@ -0,0 +1,166 @@
+package lemondead.projectileflight.level;
+
+import lemondead.game.engine.util.BoundingRect;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class SpatialIndex {
+  private static final double cellSize = 8;
+  private static final int maxCellsPerEntry = 256;
+  private static final Comparator<Entry> listOrder = Comparator.comparingLong(e -> e.sequence);
+
+  private final Map<Long, List<Entry>> cells = new HashMap<>();
+  private final List<Entry> oversized = new ArrayList<>();
+  private final List<Entry> dynamic = new ArrayList<>();
+  private long nextSequence = 0;
+  private int size = 0;
+  private int queryMark = 0;
+
+  void add(LevelObject object) {
+    Entry entry = new Entry(object, nextSequence++);
+    object.indexEntry = entry;
+    size++;
+    if (object.hasDynamicCullingRects()) {
+      dynamic.add(entry);
+    }
+    insert(entry);
+  }
+
+  void remove(LevelObject object) {
+    Entry entry = object.indexEntry;
+    if (entry == null) {
+      return;
+    }
+    erase(entry);
+    dynamic.remove(entry);
+    object.indexEntry = null;
+    size--;
+  }
+
+  void update(LevelObject object) {
+    Entry entry = object.indexEntry;
+    if (entry != null) {
+      erase(entry);
+      insert(entry);
+    }
+  }
+
+  BoundingRect getBounds(LevelObject object) {
+    return object.indexEntry.bounds;
+  }
+
+  /**
+   * @return objects whose bounds intersect the rectangle, in the order they were added. Dynamic objects and control
+   * bounds are optionally included.
+   */
+  List<LevelObject> query(BoundingRect rect, boolean controls, boolean includeDynamic) {
+    int mark = ++queryMark;
+    List<Entry> found = new ArrayList<>();
+    if (includeDynamic) {
+      for (Entry entry : dynamic) {
+        entry.mark = mark;
+        found.add(entry);
+      }
+    }
+    long minX = cell(rect.minX);
+    long minY = cell(rect.minY);
+    long maxX = cell(rect.maxX);
+    long maxY = cell(rect.maxY);
+    if ((maxX - minX + 1) * (maxY - minY + 1) > size) {
+      for (List<Entry> entries : cells.values()) {
+        collect(entries, rect, controls, mark, found);
+      }
+    } else {
+      for (long x = minX; x <= maxX; x++) {
+        for (long y = minY; y <= maxY; y++) {
+          List<Entry> entries = cells.get(key(x, y));
+          if (entries != null) {
+            collect(entries, rect, controls, mark, found);
+          }
+        }
+      }
+    }
+    collect(oversized, rect, controls, mark, found);
+    found.sort(listOrder);
+    List<LevelObject> objects = new ArrayList<>(found.size());
+    for (Entry entry : found) {
+      objects.add(entry.object);
+    }
+    return objects;
+  }
+
+  private static void collect(List<Entry> entries, BoundingRect rect, boolean controls, int mark, List<Entry> found) {
+    for (Entry entry : entries) {
+      if (entry.mark != mark && (controls ? entry.controlBounds : entry.bounds).intersects(rect)) {
+        entry.mark = mark;
+        found.add(entry);
+      }
+    }
+  }
+
+  private void insert(Entry entry) {
+    LevelObject object = entry.object;
+    entry.bounds = object.getBoundingRect().translate(object.getPos());
+    entry.controlBounds = object.getControlRect().translate(object.getPos()).unite(entry.bounds);
+    BoundingRect rect = entry.controlBounds;
+    entry.minX = cell(rect.minX);
+    entry.minY = cell(rect.minY);
+    entry.maxX = cell(rect.maxX);
+    entry.maxY = cell(rect.maxY);
+    if ((entry.maxX - entry.minX + 1) * (entry.maxY - entry.minY + 1) > maxCellsPerEntry) {
+      oversized.add(entry);
+      return;
+    }
+    for (long x = entry.minX; x <= entry.maxX; x++) {
+      for (long y = entry.minY; y <= entry.maxY; y++) {
+        cells.computeIfAbsent(key(x, y), k -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  private void erase(Entry entry) {
+    if ((entry.maxX - entry.minX + 1) * (entry.maxY - entry.minY + 1) > maxCellsPerEntry) {
+      oversized.remove(entry);
+      return;
+    }
+    for (long x = entry.minX; x <= entry.maxX; x++) {
+      for (long y = entry.minY; y <= entry.maxY; y++) {
+        long key = key(x, y);
+        List<Entry> entries = cells.get(key);
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+          cells.remove(key);
+        }
+      }
+    }
+  }
+
+  private static long cell(double coordinate) {
+    return (long) Math.floor(coordinate / cellSize);
+  }
+
+  private static long key(long x, long y) {
+    return x << 32 ^ y & 0xFFFFFFFFL;
+  }
+
+  static final class Entry {
+    private final LevelObject object;
+    private final long sequence;
+    private BoundingRect bounds;
+    private BoundingRect controlBounds;
+    private long minX;
+    private long minY;
+    private long maxX;
+    private long maxY;
+    private int mark;
+
+    private Entry(LevelObject object, long sequence) {
+      this.object = object;
+      this.sequence = sequence;
+    }
+  }
+}
@@ -18,63 +18,34 @@ import lemondead.projectileflight.Main;
 import lemondead.projectileflight.ProjectileFlight;
 import lemondead.projectileflight.level.LevelObject;
 import lemondead.projectileflight.level.ObjectRenderer;
-import org.jbox2d.collision.shapes.CircleShape;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.BodyType;
-import org.jbox2d.dynamics.FixtureDef;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.PhysicsConfig;
+import lemondead.projectileflight.simulation.SimulationRunner;
+import lemondead.projectileflight.simulation.WorldSnapshot;
+import lemondead.projectileflight.utils.ContentHash;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30;
 
-import java.util.function.BiFunction;
+import java.util.Arrays;
 
 public class Cannon extends LevelObject {
-  private static final float friction = Float.parseFloat(
-      Main.GAME_INSTANCE.configuration.getValue("physics.ball_friction_coefficient", "0.5", s -> {
-        float f;
-        try {
-          f = Float.parseFloat(s);
-        } catch (NumberFormatException e) {
-          return false;
-        }
-        return f >= 0 && f <= 1;
-      }));
-  private static final float restitution = Float.parseFloat(
-      Main.GAME_INSTANCE.configuration.getValue("physics.ball_restitution_coefficient", "0.5", s -> {
-        float f;
-        try {
-          f = Float.parseFloat(s);
-        } catch (NumberFormatException e) {
-          return false;
-        }
-        return f >= 0 && f <= 1;
-      }));
-  private static final boolean rotationEnabled = Boolean.parseBoolean(
-      Main.GAME_INSTANCE.configuration.getValue("physics.ball_rotation_enabled", "true", s -> s.toLowerCase().matches("(true)|(false)")));
-
   private static final float ballRadius = 0.5f;
   private static final float arrowLengthMultiplier = 1 / 3f;
+  private static final BoundingRect everywhere = new BoundingRect(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                                                                  Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
 
   private static final BoundingRect cannonRect = new BoundingRect(-1, -0.8, 4, 0.8).scale(5 / 7f);
   private static final BoundingRect wheelsRect = new BoundingRect(-1.2, -1.45, 1.2, 0.95).scale(5 / 7f);
 
-  private static final ObjLoader.BakedObj ballModel;
-  private static final ObjLoader.BakedObj cannonFrontModel;
-  private static final ObjLoader.BakedObj cannonModel;
-  private static final ObjLoader.BakedObj cannonWheelModel;
-
-
-  static {
-    OGLBufferAllocator alloc = OGLManager.STATIC_DRAW_ALLOCATOR;
-    cannonWheelModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon_wheels.obj");
-    ballModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(10 / 7f), "models/cannon_ball.obj");
-    cannonFrontModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon_front.obj");
-    cannonModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon.obj");
+  public static void init() {
+    Models.init();
   }
 
   private double angle = (float) Math.PI / 3;
   private double initialSpeed = 15;
-  private Body ball;
+  private int firstBall = -1;
+  private int ballCount = 0;
+  private long launchInterval = 0;
   private final CannonRenderer renderer = new CannonRenderer();
 
   private final Control[] controls = {
@@ -162,6 +133,7 @@ public class Cannon extends LevelObject {
                          .findAny().isPresent()) {
             angle = (float) newAngle;
           }
+          markChanged();
         }
       }
   };
@@ -169,6 +141,45 @@ public class Cannon extends LevelObject {
   public Cannon() {
   }
 
+  public double getAngle() {
+    return angle;
+  }
+
+  public void setAngle(double angle) {
+    this.angle = angle;
+    markChanged();
+  }
+
+  public double getInitialSpeed() {
+    return initialSpeed;
+  }
+
+  public void setInitialSpeed(double initialSpeed) {
+    this.initialSpeed = initialSpeed;
+    markChanged();
+  }
+
+  /**
+   * @return index of the first ball, the following balls of the salvo have consecutive indices
+   */
+  public int getBallIndex() {
+    return firstBall;
+  }
+
+  public int getBallCount() {
+    return ballCount;
+  }
+
+  private int getLaunchedBalls(WorldSnapshot snapshot) {
+    if (ballCount == 0 || !snapshot.hasBody(firstBall + ballCount - 1)) {
+      return 0;
+    }
+    if (launchInterval == 0) {
+      return ballCount;
+    }
+    return (int) Math.min(ballCount, snapshot.getTick() / launchInterval + 1);
+  }
+
   private BoundingRect getCannonRect() {
     return cannonRect.rotate(0, 0, angle);
   }
@@ -183,32 +194,37 @@ public class Cannon extends LevelObject {
 
   @Override
   protected void reset() {
-    ball = null;
+    firstBall = -1;
+    ballCount = 0;
+  }
+
+  @Override
+  public ObjectRenderer getRenderer(WorldSnapshot snapshot) {
+    return getRenderer(snapshot, everywhere);
   }
 
   @Override
-  public ObjectRenderer getRenderer() {
+  public ObjectRenderer getRenderer(WorldSnapshot snapshot, BoundingRect visible) {
     renderer.posX = pos.x();
     renderer.posY = pos.y();
     renderer.selected = isSelected();
     renderer.arrowLength = (float) getArrowLength();
     renderer.rect = getBoundingRect().translate(pos);
-    if (ball == null) {
-      renderer.ballPosX = pos.x();
-      renderer.ballPosY = pos.y();
-      renderer.ballVelX = 0;
-      renderer.ballVelY = 0;
-      renderer.ballAngle = 0;
-      renderer.ballAngularVelocity = 0;
+    int launched = getLaunchedBalls(snapshot);
+    if (launched == 0) {
+      renderer.ballCount = 0;
+      renderer.addBall(pos.x(), pos.y(), 0, 0, 0, pos.x(), pos.y(), 0);
     } else {
-      org.jbox2d.common.Vec2 position = ball.getPosition();
-      renderer.ballPosX = position.x;
-      renderer.ballPosY = position.y;
-      org.jbox2d.common.Vec2 linearVelocity = ball.getLinearVelocity();
-      renderer.ballVelX = linearVelocity.x;
-      renderer.ballVelY = linearVelocity.y;
-      renderer.ballAngle = ball.getAngle();
-      renderer.ballAngularVelocity = ball.getAngularVelocity();
+      renderer.ballCount = 0;
+      BoundingRect area = visible.extend(ballRadius * 2);
+      for (int i = firstBall; i < firstBall + launched; i++) {
+        double x = snapshot.getX(i);
+        double y = snapshot.getY(i);
+        if (area.contains(x, y)) {
+          renderer.addBall(x, y, snapshot.getVelocityX(i), snapshot.getVelocityY(i), snapshot.getAngle(i),
+                           snapshot.getPreviousX(i), snapshot.getPreviousY(i), snapshot.getPreviousAngle(i));
+        }
+      }
     }
     renderer.angle = angle;
     renderer.initialSpeed = initialSpeed;
@@ -216,21 +232,38 @@ public class Cannon extends LevelObject {
   }
 
   @Override
-  public void initBodies(BiFunction<BodyDef, FixtureDef, Body> function) {
-    BodyDef bodyDef = new BodyDef();
-    bodyDef.type = BodyType.DYNAMIC;
+  public void initBodies(PhysicsBackend backend) {
     Vec2 pos = getPos();
-    bodyDef.position = new org.jbox2d.common.Vec2((float) pos.x(), (float) pos.y());
-    bodyDef.linearVelocity = new org.jbox2d.common.Vec2((float) (Math.cos(angle) * initialSpeed), (float) (Math.sin(angle) * initialSpeed));
-    FixtureDef fixtureDef = new FixtureDef();
-    fixtureDef.density = 1000;
-    fixtureDef.restitution = restitution;
-    CircleShape circleShape = new CircleShape();
-    circleShape.m_radius = ballRadius;
-    fixtureDef.shape = circleShape;
-    fixtureDef.friction = friction * friction;
-    bodyDef.fixedRotation = !rotationEnabled;
-    ball = function.apply(bodyDef, fixtureDef);
+    PhysicsConfig config = getLevel().getPhysicsConfig();
+    backend.startGroup();
+    ballCount = config.getShotCount();
+    launchInterval = Math.round(config.getShotInterval() / SimulationRunner.TIME_STEP);
+    for (int shot = 0; shot < ballCount; shot++) {
+      double shotAngle = ballCount > 1 ? angle + config.getShotSpread() * (shot / (ballCount - 1.0) - 0.5) : angle;
+      int index = backend.addBall(pos.x(), pos.y(), Math.cos(shotAngle) * initialSpeed, Math.sin(shotAngle) * initialSpeed, ballRadius,
+                                  1000, config.getBallFriction() * config.getBallFriction(), config.getBallRestitution(),
+                                  !config.isBallRotationEnabled(), shot * launchInterval);
+      if (shot == 0) {
+        firstBall = index;
+      }
+    }
+  }
+
+  @Override
+  public long contentHash(long hash) {
+    hash = ContentHash.mix(hash, pos.x());
+    hash = ContentHash.mix(hash, pos.y());
+    hash = ContentHash.mix(hash, angle);
+    return ContentHash.mix(hash, initialSpeed);
+  }
+
+  @Override
+  public Cannon copy() {
+    Cannon copy = new Cannon();
+    copy.pos = pos;
+    copy.angle = angle;
+    copy.initialSpeed = initialSpeed;
+    return copy;
   }
 
   @Override
@@ -249,87 +282,224 @@ public class Cannon extends LevelObject {
   }
 
   @Override
-  public BoundingRect[] getCullingRects() {
-    if (ball == null) {
-      return super.getCullingRects();
+  protected BoundingRect getControlRect() {
+    double d = getArrowLength() * 2;
+    return getBoundingRect().unite(BoundingRect.withCenter(0, 0, d, d));
+  }
+
+  @Override
+  protected boolean hasDynamicCullingRects() {
+    return true;
+  }
+
+  @Override
+  public BoundingRect[] getCullingRects(WorldSnapshot snapshot) {
+    int launched = getLaunchedBalls(snapshot);
+    if (launched == 0) {
+      return super.getCullingRects(snapshot);
+    }
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = firstBall; i < firstBall + launched; i++) {
+      minX = Math.min(minX, snapshot.getX(i));
+      minY = Math.min(minY, snapshot.getY(i));
+      maxX = Math.max(maxX, snapshot.getX(i));
+      maxY = Math.max(maxY, snapshot.getY(i));
     }
-    org.jbox2d.common.Vec2 ballPos = ball.getPosition();
     BoundingRect[] rects = new BoundingRect[2];
     rects[0] = getBoundingRect().translate(getPos());
-    rects[1] = BoundingRect.withCenter(ballPos.x, ballPos.y, ballRadius * 2, ballRadius * 2);
+    rects[1] = new BoundingRect(minX, minY, maxX, maxY).extend(ballRadius * 2);
     return rects;
   }
 
+  private static class Models {
+    private static final ObjLoader.BakedObj ballModel;
+    private static final ObjLoader.BakedObj cannonFrontModel;
+    private static final ObjLoader.BakedObj cannonModel;
+    private static final ObjLoader.BakedObj cannonWheelModel;
+
+    static {
+      OGLBufferAllocator alloc = OGLManager.STATIC_DRAW_ALLOCATOR;
+      cannonWheelModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon_wheels.obj");
+      ballModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(10 / 7f), "models/cannon_ball.obj");
+      cannonFrontModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon_front.obj");
+      cannonModel = ObjLoader.loadSafe(alloc, ModelTransformer.scale(5 / 7f), "models/cannon.obj");
+    }
+
+    @SuppressWarnings("EmptyMethod")
+    private static void init() {
+      //Static initializer trigger
+    }
+  }
+
   private static class CannonRenderer implements ObjectRenderer {
+    private static final int ballStride = 8;
+    private static final int outlineSegments = 8;
+    private static final double minDetailedBallPixels = 4;
+    private static final int maxLabeledBalls = 16;
+
     private double posX, posY;
     private double angle, initialSpeed;
-    private double ballPosX, ballPosY;
-    private double ballVelX, ballVelY;
-    private double ballAngle, ballAngularVelocity;
+    private double[] balls = new double[ballStride];
+    private int ballCount;
     private BoundingRect rect;
     private boolean selected;
     private float arrowLength;
 
+    private void addBall(double x, double y, double velX, double velY, double angle, double previousX, double previousY,
+                         double previousAngle) {
+      int offset = ballCount * ballStride;
+      if (offset == balls.length) {
+        balls = Arrays.copyOf(balls, balls.length * 2);
+      }
+      balls[offset] = x;
+      balls[offset + 1] = y;
+      balls[offset + 2] = angle;
+      balls[offset + 3] = velX;
+      balls[offset + 4] = velY;
+      balls[offset + 5] = previousX;
+      balls[offset + 6] = previousY;
+      balls[offset + 7] = previousAngle;
+      ballCount++;
+    }
+
+    /**
+     * @param property 0 for x, 1 for y, 2 for angle
+     */
+    private double interpolate(int ball, int property, double tickFraction) {
+      int offset = ball * ballStride + property;
+      double previous = balls[offset + 5];
+      return previous + (balls[offset] - previous) * tickFraction;
+    }
+
+    private Mat4 getBallMatrix(Mat4 matrix, int ball, double tickFraction) {
+      return matrix.multiply(Mat4.translate(interpolate(ball, 0, tickFraction), interpolate(ball, 1, tickFraction), 0))
+                   .multiply(Mat4.rotate(0, 0, interpolate(ball, 2, tickFraction)));
+    }
+
+    /**
+     * Balls that cover only a few pixels are drawn as outlines in one batch instead of one model draw each.
+     */
+    private boolean isDetailed(Camera camera) {
+      Vec2 center = camera.toScreenSpace(Vec3.of(posX, posY, 0));
+      Vec2 edge = camera.toScreenSpace(Vec3.of(posX + ballRadius, posY, 0));
+      return ballCount == 1 || edge.subtract(center).length() >= minDetailedBallPixels;
+    }
+
     @Override
-    public void render(DrawPass pass, Camera camera, Vec4 color, double timeAfterUpdate) {
+    public void render(DrawPass pass, Camera camera, Vec4 color, double tickFraction) {
       Vec4 newColor = Vec4.of(0, 0, 0, color.w());
       Mat4 matrix = camera.getMatrix();
       switch (pass) {
         case DEPTH_ONLY:
-          cannonModel.drawSolid(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), Vec4.ZERO);
-          ballModel.drawSolid(matrix.multiply(Mat4.translate(ballPosX + ballVelX * timeAfterUpdate, ballPosY + ballVelY * timeAfterUpdate, 0))
-                                    .multiply(Mat4.rotate(0, 0, ballAngle + ballAngularVelocity * timeAfterUpdate)), newColor);
+          Models.cannonModel.drawSolid(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), Vec4.ZERO);
+          if (isDetailed(camera)) {
+            for (int i = 0; i < ballCount; i++) {
+              Models.ballModel.drawSolid(getBallMatrix(matrix, i, tickFraction), newColor);
+            }
+          }
           break;
         case LINES:
-          ballModel.drawLines(matrix.multiply(Mat4.translate(ballPosX + ballVelX * timeAfterUpdate, ballPosY + ballVelY * timeAfterUpdate, 0))
-                                    .multiply(Mat4.rotate(0, 0, ballAngle + ballAngularVelocity * timeAfterUpdate)), newColor);
+          if (isDetailed(camera)) {
+            for (int i = 0; i < ballCount; i++) {
+              Models.ballModel.drawLines(getBallMatrix(matrix, i, tickFraction), newColor);
+            }
+          } else if (ballCount > 0) {
+            drawOutlines(matrix, newColor, tickFraction);
+          }
           Mat4 translated = matrix.multiply(Mat4.translate(posX, posY, 0));
-          cannonWheelModel.drawLines(translated, newColor);
-          cannonModel.drawLines(translated.multiply(Mat4.rotate(0, 0, angle)), newColor);
+          Models.cannonWheelModel.drawLines(translated, newColor);
+          Models.cannonModel.drawLines(translated.multiply(Mat4.rotate(0, 0, angle)), newColor);
           break;
         case TRANSPARENT:
-          TextRenderer text = Main.GAME_INSTANCE.textRenderer;
-          cannonFrontModel.drawLines(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), newColor);
-          if (Main.GAME_INSTANCE.keyboard.isPressed(KeyboardInputManager.SHOW_VELOCITIES)) {
-            SimpleBuilder builder = new SimpleBuilder(RenderMode.LINES, Program.POSITION_COLOR);
-            float length = (float) Math.sqrt(ballVelX * ballVelX + ballVelY * ballVelY);
-            builder.startVertices(v -> {
-              v.pos(0, 0, 0).color(1, 1, 1, 1).end();
-              v.pos(length, 0, 0).color(1, 1, 1, 1).end();
-              v.pos(length - 0.5f, 0.2f, 0).color(1, 1, 1, 1).end();
-              v.pos(length, 0, 0).color(1, 1, 1, 1).end();
-              v.pos(length - 0.5f, -0.2f, 0).color(1, 1, 1, 1).end();
-              v.pos(length, 0, 0).color(1, 1, 1, 1).end();
-            });
-            try (BufferRenderer renderer = builder.upload(OGLManager.STREAM_DRAW_ALLOCATOR, ModelTransformer.IDENTITY)) {
-              renderer.draw(u -> {
-                u.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(ballPosX, ballPosY, 0))
-                                                                     .multiply(Mat4.rotate(0, 0, Math.atan2(ballVelY, ballVelX))));
-                u.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, 1).multiply(color));
-              });
-            }
-            Vec2 screenPos = camera.toScreenSpace(Vec3.of(ballPosX + ballVelX / 2, ballPosY + ballVelY / 2, 0)).add(5, 5);
-            text.drawString("X " + ProjectileFlight.DECIMAL_FORMAT.format(ballVelX), screenPos.add(0, 14), Vec4.of(0, 0, 0, 0.5).multiply(color),
-                            TextRenderer.FontSize.PT_11, TextRenderer.Alignment.CENTERED, camera);
-            text.drawString("Y " + ProjectileFlight.DECIMAL_FORMAT.format(ballVelY), screenPos, Vec4.of(0, 0, 0, 0.5).multiply(color),
-                            TextRenderer.FontSize.PT_11, TextRenderer.Alignment.CENTERED, camera);
+          Models.cannonFrontModel.drawLines(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), newColor);
+          if (Main.GAME_INSTANCE.keyboard.isPressed(KeyboardInputManager.SHOW_VELOCITIES) && ballCount > 0) {
+            drawVelocities(camera, matrix, color);
           }
           break;
       }
     }
 
+    private void drawOutlines(Mat4 matrix, Vec4 color, double tickFraction) {
+      SimpleBuilder builder = new SimpleBuilder(RenderMode.LINES, Program.POSITION_COLOR, ballCount * outlineSegments * 2);
+      builder.startVertices(v -> {
+        for (int i = 0; i < ballCount; i++) {
+          float x = (float) interpolate(i, 0, tickFraction);
+          float y = (float) interpolate(i, 1, tickFraction);
+          for (int segment = 0; segment < outlineSegments; segment++) {
+            double from = Math.PI * 2 * segment / outlineSegments;
+            double to = Math.PI * 2 * (segment + 1) / outlineSegments;
+            v.pos(x + ballRadius * (float) Math.cos(from), y + ballRadius * (float) Math.sin(from), 0).color(1, 1, 1, 1).end();
+            v.pos(x + ballRadius * (float) Math.cos(to), y + ballRadius * (float) Math.sin(to), 0).color(1, 1, 1, 1).end();
+          }
+        }
+      });
+      try (BufferRenderer renderer = builder.upload(OGLManager.STREAM_DRAW_ALLOCATOR, ModelTransformer.IDENTITY)) {
+        renderer.draw(u -> {
+          u.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix);
+          u.setUniform(Program.Uniform.TINT, color);
+        });
+      }
+    }
+
+    private void drawVelocities(Camera camera, Mat4 matrix, Vec4 color) {
+      SimpleBuilder builder = new SimpleBuilder(RenderMode.LINES, Program.POSITION_COLOR, ballCount * 6);
+      builder.startVertices(v -> {
+        for (int i = 0; i < ballCount; i++) {
+          int offset = i * ballStride;
+          float x = (float) balls[offset];
+          float y = (float) balls[offset + 1];
+          float velX = (float) balls[offset + 3];
+          float velY = (float) balls[offset + 4];
+          float length = (float) Math.sqrt(velX * velX + velY * velY);
+          float cos = length == 0 ? 1 : velX / length;
+          float sin = length == 0 ? 0 : velY / length;
+          float tipX = x + velX;
+          float tipY = y + velY;
+          v.pos(x, y, 0).color(1, 1, 1, 1).end();
+          v.pos(tipX, tipY, 0).color(1, 1, 1, 1).end();
+          v.pos(tipX - 0.5f * cos - 0.2f * sin, tipY - 0.5f * sin + 0.2f * cos, 0).color(1, 1, 1, 1).end();
+          v.pos(tipX, tipY, 0).color(1, 1, 1, 1).end();
+          v.pos(tipX - 0.5f * cos + 0.2f * sin, tipY - 0.5f * sin - 0.2f * cos, 0).color(1, 1, 1, 1).end();
+          v.pos(tipX, tipY, 0).color(1, 1, 1, 1).end();
+        }
+      });
+      try (BufferRenderer renderer = builder.upload(OGLManager.STREAM_DRAW_ALLOCATOR, ModelTransformer.IDENTITY)) {
+        renderer.draw(u -> {
+          u.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix);
+          u.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, 1).multiply(color));
+        });
+      }
+      if (ballCount > maxLabeledBalls) {
+        return;
+      }
+      TextRenderer text = Main.GAME_INSTANCE.textRenderer;
+      for (int i = 0; i < ballCount; i++) {
+        int offset = i * ballStride;
+        double ballVelX = balls[offset + 3];
+        double ballVelY = balls[offset + 4];
+        Vec2 screenPos = camera.toScreenSpace(Vec3.of(balls[offset] + ballVelX / 2, balls[offset + 1] + ballVelY / 2, 0)).add(5, 5);
+        text.drawString("X " + ProjectileFlight.DECIMAL_FORMAT.format(ballVelX), screenPos.add(0, 14), Vec4.of(0, 0, 0, 0.5).multiply(color),
+                        TextRenderer.FontSize.PT_11, TextRenderer.Alignment.CENTERED, camera);
+        text.drawString("Y " + ProjectileFlight.DECIMAL_FORMAT.format(ballVelY), screenPos, Vec4.of(0, 0, 0, 0.5).multiply(color),
+                        TextRenderer.FontSize.PT_11, TextRenderer.Alignment.CENTERED, camera);
+      }
+    }
+
     @Override
     public void renderFlat(DrawPass pass, Camera camera, Vec4 color) {
       Mat4 matrix = camera.getMatrix();
       Vec4 newColor = Vec4.of(0, 0, 0, color.w());
       switch (pass) {
         case DEPTH_ONLY:
-          cannonModel.drawSolid(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), Vec4.ZERO);
+          Models.cannonModel.drawSolid(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), Vec4.ZERO);
           break;
         case LINES:
           Mat4 translated = matrix.multiply(Mat4.translate(posX, posY, 0));
-          cannonWheelModel.drawLines(translated, newColor);
-          cannonModel.drawLines(translated.multiply(Mat4.rotate(0, 0, angle)), newColor);
+          Models.cannonWheelModel.drawLines(translated, newColor);
+          Models.cannonModel.drawLines(translated.multiply(Mat4.rotate(0, 0, angle)), newColor);
           SimpleBuilder dataBuilder = new SimpleBuilder(RenderMode.LINES, Program.POSITION_COLOR, 6);
           dataBuilder.startVertices(builder -> {
             builder.pos(2, 0, 0).color(1, 1, 1, 1).end();
@@ -348,7 +518,7 @@ public class Cannon extends LevelObject {
           }
           break;
         case TRANSPARENT:
-          cannonFrontModel.drawLines(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), newColor);
+          Models.cannonFrontModel.drawLines(matrix.multiply(Mat4.translate(posX, posY, 0)).multiply(Mat4.rotate(0, 0, angle)), newColor);
           dataBuilder = new SimpleBuilder(RenderMode.LINES, Program.POSITION_COLOR, 6);
           dataBuilder.startStrip(1, builder -> {
             builder.pos((float) rect.minX, (float) rect.minY, 0).color(0, 0, 0, 1).end();
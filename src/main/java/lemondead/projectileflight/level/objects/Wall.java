@@ -20,34 +20,17 @@ import lemondead.projectileflight.KeyboardInputManager;
 import lemondead.projectileflight.Main;
 import lemondead.projectileflight.level.LevelObject;
 import lemondead.projectileflight.level.ObjectRenderer;
-import org.jbox2d.collision.shapes.PolygonShape;
-import org.jbox2d.dynamics.Body;
-import org.jbox2d.dynamics.BodyDef;
-import org.jbox2d.dynamics.FixtureDef;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.WorldSnapshot;
+import lemondead.projectileflight.utils.ContentHash;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30;
 
-import java.util.function.BiFunction;
-
 public class Wall extends LevelObject {
   private static final float halfWidth = 0.25f;
 
-  private static final BufferRenderer round = SimpleModels.getCircleModel(OGLManager.STATIC_DRAW_ALLOCATOR, 0, 0, 1, 16, 1, 1, 1, 1);
-  private static final BufferRenderer solidCube;
-  private static final BufferRenderer wireframeCube;
-
-  static {
-    solidCube = SimpleModels
-        .getCuboid(new IndexedBuilder(RenderMode.SOLID, Program.POSITION_COLOR), -1, -2, -1, 2, 2, 2)
-        .upload(OGLManager.STATIC_DRAW_ALLOCATOR, ModelTransformer.IDENTITY);
-    wireframeCube = SimpleModels
-        .getCuboid(new IndexedBuilder(RenderMode.LINES, Program.POSITION_COLOR), -1, -2, -1, 2, 2, 2)
-        .upload(OGLManager.STATIC_DRAW_ALLOCATOR, ModelTransformer.IDENTITY);
-  }
-
-  @SuppressWarnings("EmptyMethod")
   public static void init() {
-    //Static initializer trigger
+    Models.init();
   }
 
   private double extent = 3;
@@ -94,6 +77,7 @@ public class Wall extends LevelObject {
           Wall.this.pos = newPos;
           Wall.this.angle = angle1;
           Wall.this.extent = extend1;
+          markChanged();
         }
       },
       new Control() {
@@ -135,6 +119,7 @@ public class Wall extends LevelObject {
           Wall.this.pos = newPos;
           Wall.this.angle = angle1;
           Wall.this.extent = extend1;
+          markChanged();
         }
       },
       new Control() {
@@ -205,21 +190,29 @@ public class Wall extends LevelObject {
   }
 
   @Override
-  public void initBodies(BiFunction<BodyDef, FixtureDef, Body> function) {
-    BodyDef bodyDef = new BodyDef();
-    bodyDef.position = new org.jbox2d.common.Vec2((float) pos.x(), (float) pos.y());
-    bodyDef.angle = (float) angle;
-    FixtureDef fixtureDef = new FixtureDef();
-    PolygonShape polygonShape = new PolygonShape();
-    polygonShape.setAsBox((float) extent, halfWidth * 2, new org.jbox2d.common.Vec2(0, -2 * halfWidth), 0);
-    fixtureDef.shape = polygonShape;
-    fixtureDef.friction = 1;
-    fixtureDef.restitution = 0;
-    function.apply(bodyDef, fixtureDef);
+  public void initBodies(PhysicsBackend backend) {
+    backend.addBox(pos.x(), pos.y(), angle, (float) extent, halfWidth * 2, 0, -2 * halfWidth, 1, 0);
+  }
+
+  @Override
+  public long contentHash(long hash) {
+    hash = ContentHash.mix(hash, pos.x());
+    hash = ContentHash.mix(hash, pos.y());
+    hash = ContentHash.mix(hash, angle);
+    return ContentHash.mix(hash, extent);
+  }
+
+  @Override
+  public Wall copy() {
+    Wall copy = new Wall();
+    copy.pos = pos;
+    copy.angle = angle;
+    copy.extent = extent;
+    return copy;
   }
 
   @Override
-  public ObjectRenderer getRenderer() {
+  public ObjectRenderer getRenderer(WorldSnapshot snapshot) {
     renderer.x = pos.x();
     renderer.y = pos.y();
     renderer.extent = extent;
@@ -231,6 +224,7 @@ public class Wall extends LevelObject {
 
   public void setPos(Vec2 pos) {
     this.pos = pos;
+    markChanged();
   }
 
   @Override
@@ -238,6 +232,26 @@ public class Wall extends LevelObject {
     return new BoundingRect(-extent, -2 * halfWidth, extent, 0).rotate(0, 0, angle);
   }
 
+  private static class Models {
+    private static final BufferRenderer round = SimpleModels.getCircleModel(OGLManager.STATIC_DRAW_ALLOCATOR, 0, 0, 1, 16, 1, 1, 1, 1);
+    private static final BufferRenderer solidCube;
+    private static final BufferRenderer wireframeCube;
+
+    static {
+      solidCube = SimpleModels
+          .getCuboid(new IndexedBuilder(RenderMode.SOLID, Program.POSITION_COLOR), -1, -2, -1, 2, 2, 2)
+          .upload(OGLManager.STATIC_DRAW_ALLOCATOR, ModelTransformer.IDENTITY);
+      wireframeCube = SimpleModels
+          .getCuboid(new IndexedBuilder(RenderMode.LINES, Program.POSITION_COLOR), -1, -2, -1, 2, 2, 2)
+          .upload(OGLManager.STATIC_DRAW_ALLOCATOR, ModelTransformer.IDENTITY);
+    }
+
+    @SuppressWarnings("EmptyMethod")
+    private static void init() {
+      //Static initializer trigger
+    }
+  }
+
   private static class WallRenderer implements ObjectRenderer {
     private double x, y;
     private double angle;
@@ -246,11 +260,11 @@ public class Wall extends LevelObject {
     private boolean selected;
 
     @Override
-    public void render(DrawPass pass, Camera camera, Vec4 color, double timeAfterUpdate) {
+    public void render(DrawPass pass, Camera camera, Vec4 color, double tickFraction) {
       Mat4 matrix = camera.getMatrix();
       switch (pass) {
         case LINES:
-          wireframeCube.draw(uniformSetter -> {
+          Models.wireframeCube.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x, y, 0)).multiply(Mat4.rotate(0, 0, angle))
                                                                              .multiply(Mat4.scale(extent, halfWidth, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, color.w()));
@@ -259,7 +273,7 @@ public class Wall extends LevelObject {
         case DEPTH_ONLY:
           GL20C.glEnable(GL20C.GL_POLYGON_OFFSET_FILL);
           GL20C.glPolygonOffset(1.0f, 1.0f);
-          solidCube.draw(uniformSetter -> {
+          Models.solidCube.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x, y, 0)).multiply(Mat4.rotate(0, 0, angle))
                                                                              .multiply(Mat4.scale(extent, halfWidth, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, 0));
@@ -296,19 +310,19 @@ public class Wall extends LevelObject {
           double offsetY = Math.sin(angle) * extent;
           double offsetX = Math.cos(angle) * extent;
 
-          round.draw(uniformSetter -> {
+          Models.round.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x + offsetX, y + offsetY, 1))
                                                                              .multiply(Mat4.scale(halfWidth / 2, halfWidth / 2, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, color.w()));
           });
-          round.draw(uniformSetter -> {
+          Models.round.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x - offsetX, y - offsetY, 1))
                                                                              .multiply(Mat4.scale(halfWidth / 2, halfWidth / 2, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, color.w()));
           });
           break;
         case LINES:
-          wireframeCube.draw(uniformSetter -> {
+          Models.wireframeCube.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x, y, 0)).multiply(Mat4.rotate(0, 0, angle))
                                                                              .multiply(Mat4.scale(extent, halfWidth, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, color.w()));
@@ -317,7 +331,7 @@ public class Wall extends LevelObject {
         case DEPTH_ONLY:
           GL20C.glEnable(GL20C.GL_POLYGON_OFFSET_FILL);
           GL20C.glPolygonOffset(1.0f, 1.0f);
-          solidCube.draw(uniformSetter -> {
+          Models.solidCube.draw(uniformSetter -> {
             uniformSetter.setUniform(Program.Uniform.TRANSFORM_MATRIX, matrix.multiply(Mat4.translate(x, y, 0)).multiply(Mat4.rotate(0, 0, angle))
                                                                              .multiply(Mat4.scale(extent, halfWidth, 1, 1)));
             uniformSetter.setUniform(Program.Uniform.TINT, Vec4.of(0, 0, 0, 0));
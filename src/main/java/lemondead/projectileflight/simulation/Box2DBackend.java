@@ -0,0 +1,456 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.ContactID;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.ManifoldPoint;
+import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Sweep;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.ContactManager;
+import org.jbox2d.dynamics.Filter;
+import org.jbox2d.dynamics.Fixture;
+import org.jbox2d.dynamics.FixtureDef;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.Contact;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+public class Box2DBackend implements PhysicsBackend {
+  private static final int awakeFlag = 1;
+  private static final int pendingFlag = 2;
+  private static final int contactHeader = 2;
+  private static final int contactStride = 23;
+  private static final float groundHalfWidth = 1E+6f;
+  private static final float groundHalfHeight = 10;
+
+  private final World world;
+  private final ImpactListener impactListener;
+  private final Body staticBody;
+  private final List<Fixture> fixtures = new ArrayList<>();
+  private final List<Body> dynamicBodies = new ArrayList<>();
+  private final Map<Fixture, Integer> fixtureIndices = new IdentityHashMap<>();
+  private final List<Body> pending = new ArrayList<>();
+  private final List<Long> pendingTicks = new ArrayList<>();
+  private final List<Long> launchTicks = new ArrayList<>();
+  private long nextLaunchTick = Long.MAX_VALUE;
+  private int[] proxyIds = new int[0];
+  private int velocityIterations;
+  private int positionIterations;
+  private float timeStep = 0;
+  private boolean fresh = true;
+
+  public Box2DBackend(PhysicsConfig config, CollisionLog collisions, DoubleSupplier worldTime) {
+    Vec2 gravity = config.getGravity();
+    world = new World(new org.jbox2d.common.Vec2((float) gravity.x(), (float) gravity.y()));
+    staticBody = world.createBody(new BodyDef());
+    addGround();
+    impactListener = new ImpactListener(collisions, worldTime);
+    world.setContactListener(impactListener);
+    setQuality(config.getQuality());
+  }
+
+  /**
+   * The ground is a box 2,000,000 units wide with its top at y = 0.
+   */
+  private void addGround() {
+    addStaticBox(0, -groundHalfHeight, 0, groundHalfWidth, groundHalfHeight, 1, 0);
+  }
+
+  /**
+   * Balls waiting for their launch sleep and collide with nothing, but are in the broad-phase from the start, so that proxy
+   * ids and contact order never depend on when a checkpoint was loaded.
+   */
+  @Override
+  public int addBall(double x, double y, double velocityX, double velocityY, float radius, float density, float friction,
+                     float restitution, boolean fixedRotation, long launchTick) {
+    BodyDef bodyDef = new BodyDef();
+    bodyDef.type = BodyType.DYNAMIC;
+    bodyDef.awake = launchTick <= 0;
+    bodyDef.position = new org.jbox2d.common.Vec2((float) x, (float) y);
+    bodyDef.linearVelocity = new org.jbox2d.common.Vec2((float) velocityX, (float) velocityY);
+    bodyDef.fixedRotation = fixedRotation;
+    CircleShape circleShape = new CircleShape();
+    circleShape.m_radius = radius;
+    FixtureDef fixtureDef = new FixtureDef();
+    fixtureDef.shape = circleShape;
+    fixtureDef.density = density;
+    fixtureDef.friction = friction;
+    fixtureDef.restitution = restitution;
+    if (launchTick > 0) {
+      fixtureDef.filter = pendingFilter();
+    }
+    Body body = world.createBody(bodyDef);
+    addFixture(body.createFixture(fixtureDef));
+    if (launchTick > 0) {
+      pending.add(body);
+      pendingTicks.add(launchTick);
+      nextLaunchTick = Math.min(nextLaunchTick, launchTick);
+    }
+    body.setUserData(dynamicBodies.size());
+    dynamicBodies.add(body);
+    launchTicks.add(launchTick);
+    return dynamicBodies.size() - 1;
+  }
+
+  /**
+   * Boxes become fixtures of one static body, so the solver doesn't walk a body per wall every step.
+   */
+  @Override
+  public void addBox(double x, double y, double angle, float halfWidth, float halfHeight, float centerX, float centerY,
+                     float friction, float restitution) {
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+    addStaticBox(x + centerX * cos - centerY * sin, y + centerX * sin + centerY * cos, angle, halfWidth, halfHeight, friction,
+                 restitution);
+  }
+
+  private void addStaticBox(double x, double y, double angle, float halfWidth, float halfHeight, float friction,
+                            float restitution) {
+    PolygonShape polygonShape = new PolygonShape();
+    polygonShape.setAsBox(halfWidth, halfHeight, new org.jbox2d.common.Vec2((float) x, (float) y), (float) angle);
+    FixtureDef fixtureDef = new FixtureDef();
+    fixtureDef.shape = polygonShape;
+    fixtureDef.friction = friction;
+    fixtureDef.restitution = restitution;
+    addFixture(staticBody.createFixture(fixtureDef));
+  }
+
+  private void addFixture(Fixture fixture) {
+    fixtureIndices.put(fixture, fixtures.size());
+    fixtures.add(fixture);
+  }
+
+  private static Filter pendingFilter() {
+    Filter filter = new Filter();
+    filter.maskBits = 0;
+    return filter;
+  }
+
+  @Override
+  public void launch(long tick) {
+    if (tick < nextLaunchTick) {
+      return;
+    }
+    nextLaunchTick = Long.MAX_VALUE;
+    int kept = 0;
+    for (int i = 0; i < pending.size(); i++) {
+      Body body = pending.get(i);
+      long launchTick = pendingTicks.get(i);
+      if (launchTick <= tick) {
+        body.getFixtureList().setFilterData(new Filter());
+        body.setAwake(true);
+      } else {
+        pending.set(kept, body);
+        pendingTicks.set(kept++, launchTick);
+        nextLaunchTick = Math.min(nextLaunchTick, launchTick);
+      }
+    }
+    pending.subList(kept, pending.size()).clear();
+    pendingTicks.subList(kept, pendingTicks.size()).clear();
+  }
+
+  @Override
+  public void setQuality(PhysicsQuality quality) {
+    velocityIterations = quality.getVelocityIterations();
+    positionIterations = quality.getPositionIterations();
+    world.setWarmStarting(quality.isWarmStarting());
+    world.setContinuousPhysics(quality.isContinuousCollision());
+  }
+
+  @Override
+  public void step(float timeStep) {
+    world.step(timeStep, velocityIterations, positionIterations);
+    impactListener.flush();
+    this.timeStep = timeStep;
+    fresh = false;
+  }
+
+  @Override
+  public void setCollisions(CollisionLog collisions) {
+    impactListener.setCollisions(collisions);
+  }
+
+  @Override
+  public int getBodyCount() {
+    return dynamicBodies.size();
+  }
+
+  @Override
+  public double getX(int index) {
+    return dynamicBodies.get(index).getPosition().x;
+  }
+
+  @Override
+  public double getY(int index) {
+    return dynamicBodies.get(index).getPosition().y;
+  }
+
+  @Override
+  public void writeBodies(double[] bodies) {
+    for (int i = 0; i < dynamicBodies.size(); i++) {
+      Body body = dynamicBodies.get(i);
+      org.jbox2d.common.Vec2 position = body.getPosition();
+      org.jbox2d.common.Vec2 velocity = body.getLinearVelocity();
+      int offset = i * WorldSnapshot.stride;
+      bodies[offset] = position.x;
+      bodies[offset + 1] = position.y;
+      bodies[offset + 2] = velocity.x;
+      bodies[offset + 3] = velocity.y;
+      bodies[offset + 4] = body.getAngle();
+      bodies[offset + 5] = body.getAngularVelocity();
+    }
+  }
+
+  @Override
+  public boolean isSettled() {
+    if (!pending.isEmpty()) {
+      return false;
+    }
+    for (Body body : dynamicBodies) {
+      if (body.isAwake()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Besides position and velocity, saves what JBox2D keeps between steps: the sweep the last step started from and the
+   * fattened broad-phase AABB, which decides when contacts are created.
+   */
+  @Override
+  public float[] saveBodies() {
+    indexProxies();
+    BroadPhase broadPhase = world.getContactManager().m_broadPhase;
+    float[] state = new float[dynamicBodies.size() * Checkpoint.stride];
+    for (int i = 0; i < dynamicBodies.size(); i++) {
+      Body body = dynamicBodies.get(i);
+      Sweep sweep = body.m_sweep;
+      AABB fatAABB = broadPhase.getFatAABB(proxyIds[i]);
+      int offset = i * Checkpoint.stride;
+      state[offset] = sweep.c.x;
+      state[offset + 1] = sweep.c.y;
+      state[offset + 2] = sweep.a;
+      state[offset + 3] = body.m_linearVelocity.x;
+      state[offset + 4] = body.m_linearVelocity.y;
+      state[offset + 5] = body.m_angularVelocity;
+      state[offset + 6] = body.m_sleepTime;
+      state[offset + 7] = (body.isAwake() ? awakeFlag : 0) | (isPending(body) ? pendingFlag : 0);
+      state[offset + 8] = sweep.c0.x;
+      state[offset + 9] = sweep.c0.y;
+      state[offset + 10] = sweep.a0;
+      state[offset + 11] = sweep.alpha0;
+      state[offset + 12] = fatAABB.lowerBound.x;
+      state[offset + 13] = fatAABB.lowerBound.y;
+      state[offset + 14] = fatAABB.upperBound.x;
+      state[offset + 15] = fatAABB.upperBound.y;
+    }
+    return state;
+  }
+
+  private static boolean isPending(Body body) {
+    return body.getFixtureList().getFilterData().maskBits == 0;
+  }
+
+  /**
+   * Parts of a manifold beyond its points are left over from earlier use of the contact and never read, so they are saved
+   * as zeros.
+   *
+   * @return whether the world has been stepped and the sub-step it was last stepped with, followed by every contact in the
+   * order of the world's list: fixture indices, in creation order with the ground first, and children, flags, sub-step
+   * counters, and the manifold with its warm starting impulses
+   */
+  @Override
+  public int[] saveContacts() {
+    if (fresh) {
+      world.getContactManager().findNewContacts();
+    }
+    int[] state = new int[contactHeader + world.getContactCount() * contactStride];
+    state[0] = fresh ? 1 : 0;
+    state[1] = Float.floatToRawIntBits(timeStep);
+    int offset = contactHeader;
+    for (Contact contact = world.getContactList(); contact != null; contact = contact.getNext()) {
+      Manifold manifold = contact.m_manifold;
+      state[offset] = fixtureIndices.get(contact.m_fixtureA);
+      state[offset + 1] = contact.m_indexA;
+      state[offset + 2] = fixtureIndices.get(contact.m_fixtureB);
+      state[offset + 3] = contact.m_indexB;
+      state[offset + 4] = contact.m_flags;
+      state[offset + 5] = Float.floatToRawIntBits(contact.m_toiCount);
+      state[offset + 6] = Float.floatToRawIntBits(contact.m_toi);
+      state[offset + 8] = manifold.pointCount;
+      if (manifold.pointCount == 0) {
+        state[offset + 7] = -1;
+        offset += contactStride;
+        continue;
+      }
+      state[offset + 7] = manifold.type.ordinal();
+      state[offset + 9] = Float.floatToRawIntBits(manifold.localNormal.x);
+      state[offset + 10] = Float.floatToRawIntBits(manifold.localNormal.y);
+      state[offset + 11] = Float.floatToRawIntBits(manifold.localPoint.x);
+      state[offset + 12] = Float.floatToRawIntBits(manifold.localPoint.y);
+      for (int p = 0; p < manifold.pointCount; p++) {
+        ManifoldPoint point = manifold.points[p];
+        int pointOffset = offset + 13 + p * 5;
+        state[pointOffset] = Float.floatToRawIntBits(point.localPoint.x);
+        state[pointOffset + 1] = Float.floatToRawIntBits(point.localPoint.y);
+        state[pointOffset + 2] = Float.floatToRawIntBits(point.normalImpulse);
+        state[pointOffset + 3] = Float.floatToRawIntBits(point.tangentImpulse);
+        ContactID id = point.id;
+        state[pointOffset + 4] = id.indexA & 0xFF | (id.indexB & 0xFF) << 8 | (id.typeA & 0xFF) << 16 | (id.typeB & 0xFF) << 24;
+      }
+      offset += contactStride;
+    }
+    return state;
+  }
+
+  /**
+   * Puts the world into exactly the state it was saved in, so that stepping on gives the same result whether or not the
+   * world was stepped, or even built, in the meantime. Contacts are recreated in their saved order, and the broad-phase
+   * AABBs of the balls are set to the saved ones. The tree may end up shaped differently, which doesn't matter because
+   * JBox2D sorts new pairs by proxy id.
+   */
+  @Override
+  public void load(float[] state, int[] contacts) {
+    boolean savedFresh = contacts[0] != 0;
+    float savedTimeStep = Float.intBitsToFloat(contacts[1]);
+    if (!savedFresh && savedTimeStep != timeStep) {
+      primeTimeStep(savedTimeStep);
+    }
+    indexProxies();
+    ContactManager contactManager = world.getContactManager();
+    BroadPhase broadPhase = contactManager.m_broadPhase;
+    while (world.getContactList() != null) {
+      contactManager.destroy(world.getContactList());
+    }
+
+    pending.clear();
+    pendingTicks.clear();
+    nextLaunchTick = Long.MAX_VALUE;
+    AABB savedAABB = new AABB();
+    org.jbox2d.common.Vec2 noDisplacement = new org.jbox2d.common.Vec2();
+    for (int i = 0; i < dynamicBodies.size(); i++) {
+      Body body = dynamicBodies.get(i);
+      int offset = i * Checkpoint.stride;
+      boolean wasPending = ((int) state[offset + 7] & pendingFlag) != 0;
+      if (wasPending != isPending(body)) {
+        body.getFixtureList().setFilterData(wasPending ? pendingFilter() : new Filter());
+      }
+      if (wasPending) {
+        long launchTick = launchTicks.get(i);
+        pending.add(body);
+        pendingTicks.add(launchTick);
+        nextLaunchTick = Math.min(nextLaunchTick, launchTick);
+      }
+      Sweep sweep = body.m_sweep;
+      sweep.c.set(state[offset], state[offset + 1]);
+      sweep.a = state[offset + 2];
+      sweep.c0.set(state[offset + 8], state[offset + 9]);
+      sweep.a0 = state[offset + 10];
+      sweep.alpha0 = state[offset + 11];
+      body.synchronizeTransform();
+      body.m_linearVelocity.set(state[offset + 3], state[offset + 4]);
+      body.m_angularVelocity = state[offset + 5];
+      body.m_force.setZero();
+      body.m_torque = 0;
+
+      savedAABB.lowerBound.set(state[offset + 12], state[offset + 13]);
+      savedAABB.upperBound.set(state[offset + 14], state[offset + 15]);
+      if (!broadPhase.getFatAABB(proxyIds[i]).contains(savedAABB)) {
+        broadPhase.moveProxy(proxyIds[i], savedAABB, noDisplacement);
+      }
+      broadPhase.getFatAABB(proxyIds[i]).set(savedAABB);
+    }
+
+    for (int offset = contacts.length - contactStride; offset >= contactHeader; offset -= contactStride) {
+      Fixture fixtureA = fixtures.get(contacts[offset]);
+      Fixture fixtureB = fixtures.get(contacts[offset + 2]);
+      contactManager.addPair(fixtureA.m_proxies[contacts[offset + 1]], fixtureB.m_proxies[contacts[offset + 3]]);
+      Contact contact = world.getContactList();
+      Manifold manifold = contact.m_manifold;
+      contact.m_flags = contacts[offset + 4];
+      contact.m_toiCount = Float.intBitsToFloat(contacts[offset + 5]);
+      contact.m_toi = Float.intBitsToFloat(contacts[offset + 6]);
+      manifold.type = contacts[offset + 7] < 0 ? null : Manifold.ManifoldType.values()[contacts[offset + 7]];
+      manifold.pointCount = contacts[offset + 8];
+      manifold.localNormal.set(Float.intBitsToFloat(contacts[offset + 9]), Float.intBitsToFloat(contacts[offset + 10]));
+      manifold.localPoint.set(Float.intBitsToFloat(contacts[offset + 11]), Float.intBitsToFloat(contacts[offset + 12]));
+      for (int p = 0; p < 2; p++) {
+        ManifoldPoint point = manifold.points[p];
+        int pointOffset = offset + 13 + p * 5;
+        point.localPoint.set(Float.intBitsToFloat(contacts[pointOffset]), Float.intBitsToFloat(contacts[pointOffset + 1]));
+        point.normalImpulse = Float.intBitsToFloat(contacts[pointOffset + 2]);
+        point.tangentImpulse = Float.intBitsToFloat(contacts[pointOffset + 3]);
+        int id = contacts[pointOffset + 4];
+        point.id.indexA = (byte) id;
+        point.id.indexB = (byte) (id >> 8);
+        point.id.typeA = (byte) (id >> 16);
+        point.id.typeB = (byte) (id >> 24);
+      }
+    }
+
+    for (int i = 0; i < dynamicBodies.size(); i++) {
+      Body body = dynamicBodies.get(i);
+      int offset = i * Checkpoint.stride;
+      if (((int) state[offset + 7] & awakeFlag) != 0) {
+        body.m_flags |= Body.e_awakeFlag;
+      } else {
+        body.m_flags &= ~Body.e_awakeFlag;
+      }
+      body.m_sleepTime = state[offset + 6];
+    }
+    contactManager.findNewContacts();
+    fresh = savedFresh;
+    timeStep = savedTimeStep;
+  }
+
+  /**
+   * Warm starting scales the saved impulses by the ratio of the next sub-step to the last one, which JBox2D keeps to
+   * itself, so a world that was last stepped with another sub-step takes one throwaway step with the saved one.
+   */
+  private void primeTimeStep(float timeStep) {
+    world.setContactListener(null);
+    world.step(timeStep, 0, 0);
+    world.setContactListener(impactListener);
+    this.timeStep = timeStep;
+  }
+
+  /**
+   * Finds the broad-phase proxy of every ball, which JBox2D doesn't expose.
+   */
+  private void indexProxies() {
+    if (proxyIds.length == dynamicBodies.size()) {
+      return;
+    }
+    Map<Object, Integer> balls = new IdentityHashMap<>();
+    for (int i = 0; i < dynamicBodies.size(); i++) {
+      balls.put(dynamicBodies.get(i).getFixtureList().m_proxies[0], i);
+    }
+    int[] proxyIds = new int[dynamicBodies.size()];
+    BroadPhase broadPhase = world.getContactManager().m_broadPhase;
+    AABB everything = new AABB(new org.jbox2d.common.Vec2(-Float.MAX_VALUE, -Float.MAX_VALUE),
+                               new org.jbox2d.common.Vec2(Float.MAX_VALUE, Float.MAX_VALUE));
+    broadPhase.query(proxyId -> {
+      Integer ball = balls.get(broadPhase.getUserData(proxyId));
+      if (ball != null) {
+        proxyIds[ball] = proxyId;
+      }
+      return true;
+    }, everything);
+    this.proxyIds = proxyIds;
+  }
+
+  public World getWorld() {
+    return world;
+  }
+}
@@ -0,0 +1,47 @@
+package lemondead.projectileflight.simulation;
+
+public final class Checkpoint {
+  /**
+   * Floats per body: center, angle, linear and angular velocity, sleep time, flags, and where backends need them, the
+   * center and angle the last step started from, its time of impact, and the broad-phase AABB.
+   */
+  static final int stride = 16;
+
+  private final long tick;
+  private final double worldTime;
+  private final int collisionCount;
+  private final float[] bodies;
+  private final int[] contacts;
+
+  Checkpoint(long tick, double worldTime, int collisionCount, float[] bodies, int[] contacts) {
+    this.tick = tick;
+    this.worldTime = worldTime;
+    this.collisionCount = collisionCount;
+    this.bodies = bodies;
+    this.contacts = contacts;
+  }
+
+  public long getTick() {
+    return tick;
+  }
+
+  public double getWorldTime() {
+    return worldTime;
+  }
+
+  public int getCollisionCount() {
+    return collisionCount;
+  }
+
+  float[] getBodies() {
+    return bodies;
+  }
+
+  int[] getContacts() {
+    return contacts;
+  }
+
+  public long getSizeInBytes() {
+    return 64 + bodies.length * 4L + contacts.length * 4L;
+  }
+}
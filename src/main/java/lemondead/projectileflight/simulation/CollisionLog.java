@@ -0,0 +1,161 @@
+package lemondead.projectileflight.simulation;
+
+import java.util.Arrays;
+
+public final class CollisionLog {
+  public static final int BYTES_PER_ENTRY = 5 * 8 + 4;
+
+  private static final int chunkShift = 10;
+  private static final int chunkSize = 1 << chunkShift;
+  private static final int chunkMask = chunkSize - 1;
+
+  private volatile Chunk[] chunks = new Chunk[4];
+  private volatile int size = 0;
+
+  public void add(double x, double y, double normalX, double normalY, double time, int bodyId) {
+    int index = size;
+    int chunkIndex = index >>> chunkShift;
+    Chunk[] chunks = this.chunks;
+    if (chunkIndex >= chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunks.length * 2);
+    }
+    Chunk chunk = chunks[chunkIndex];
+    if (chunk == null) {
+      chunk = new Chunk();
+      chunks[chunkIndex] = chunk;
+      this.chunks = chunks;
+    }
+    int i = index & chunkMask;
+    chunk.x[i] = x;
+    chunk.y[i] = y;
+    chunk.normalX[i] = normalX;
+    chunk.normalY[i] = normalY;
+    chunk.time[i] = time;
+    chunk.bodyIds[i] = bodyId;
+    size = index + 1;
+  }
+
+  /**
+   * Forgets all entries while keeping the memory. Only for logs that no one else reads.
+   */
+  void clear() {
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public double getX(int index) {
+    return chunk(index).x[index & chunkMask];
+  }
+
+  public double getY(int index) {
+    return chunk(index).y[index & chunkMask];
+  }
+
+  public double getNormalX(int index) {
+    return chunk(index).normalX[index & chunkMask];
+  }
+
+  public double getNormalY(int index) {
+    return chunk(index).normalY[index & chunkMask];
+  }
+
+  public double getTime(int index) {
+    return chunk(index).time[index & chunkMask];
+  }
+
+  public int getBodyId(int index) {
+    return chunk(index).bodyIds[index & chunkMask];
+  }
+
+  /**
+   * @return memory taken by the entries, counting whole chunks
+   */
+  public long getSizeInBytes() {
+    Chunk[] chunks = this.chunks;
+    long size = 16 + chunks.length * 8L;
+    for (Chunk chunk : chunks) {
+      if (chunk != null) {
+        size += (long) chunkSize * BYTES_PER_ENTRY;
+      }
+    }
+    return size;
+  }
+
+  public CollisionLog copy(int count) {
+    if (count < 0 || count > size) {
+      throw new IndexOutOfBoundsException("Count: " + count + ", size: " + size);
+    }
+    Chunk[] chunks = this.chunks;
+    Chunk[] copyChunks = new Chunk[chunks.length];
+    for (int from = 0; from < count; from += chunkSize) {
+      Chunk chunk = chunks[from >>> chunkShift];
+      Chunk copyChunk = new Chunk();
+      int length = Math.min(chunkSize, count - from);
+      System.arraycopy(chunk.x, 0, copyChunk.x, 0, length);
+      System.arraycopy(chunk.y, 0, copyChunk.y, 0, length);
+      System.arraycopy(chunk.normalX, 0, copyChunk.normalX, 0, length);
+      System.arraycopy(chunk.normalY, 0, copyChunk.normalY, 0, length);
+      System.arraycopy(chunk.time, 0, copyChunk.time, 0, length);
+      System.arraycopy(chunk.bodyIds, 0, copyChunk.bodyIds, 0, length);
+      copyChunks[from >>> chunkShift] = copyChunk;
+    }
+    CollisionLog copy = new CollisionLog();
+    copy.chunks = copyChunks;
+    copy.size = count;
+    return copy;
+  }
+
+  public Cursor cursor() {
+    return new Cursor(0);
+  }
+
+  public Cursor cursor(int position) {
+    return new Cursor(position);
+  }
+
+  private Chunk chunk(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    return chunks[index >>> chunkShift];
+  }
+
+  private static final class Chunk {
+    private final double[] x = new double[chunkSize];
+    private final double[] y = new double[chunkSize];
+    private final double[] normalX = new double[chunkSize];
+    private final double[] normalY = new double[chunkSize];
+    private final double[] time = new double[chunkSize];
+    private final int[] bodyIds = new int[chunkSize];
+  }
+
+  public final class Cursor {
+    private int position;
+
+    private Cursor(int position) {
+      this.position = position;
+    }
+
+    public boolean hasNext() {
+      return position < size;
+    }
+
+    public int next() {
+      if (!hasNext()) {
+        throw new IllegalStateException("No new collisions.");
+      }
+      return position++;
+    }
+
+    public int getPosition() {
+      return position;
+    }
+
+    public CollisionLog getLog() {
+      return CollisionLog.this;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package lemondead.projectileflight.simulation;
+
+import org.jbox2d.callbacks.ContactImpulse;
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.WorldManifold;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.contacts.Contact;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+public class ImpactListener implements ContactListener {
+  private static final int radixBits = 8;
+  private static final int radix = 1 << radixBits;
+  private CollisionLog collisions;
+  private final DoubleSupplier worldTime;
+  private final WorldManifold worldManifold = new WorldManifold();
+  private final CollisionLog stepCollisions = new CollisionLog();
+  private final int[] counts = new int[radix + 1];
+  private int[] order = new int[64];
+  private int[] sorted = new int[64];
+
+  public ImpactListener(CollisionLog collisions, DoubleSupplier worldTime) {
+    this.collisions = collisions;
+    this.worldTime = worldTime;
+  }
+
+  public void setCollisions(CollisionLog collisions) {
+    this.collisions = collisions;
+  }
+
+  @Override
+  public void beginContact(Contact contact) {
+    Body bodyA = contact.getFixtureA().getBody();
+    Body bodyB = contact.getFixtureB().getBody();
+    Manifold manifold = contact.getManifold();
+    contact.getWorldManifold(worldManifold);
+    double x = worldManifold.points[0].x;
+    double y = worldManifold.points[0].y;
+    if (manifold.pointCount == 2) {
+      x = (x + worldManifold.points[1].x) / 2;
+      y = (y + worldManifold.points[1].y) / 2;
+    }
+    Vec2 normal = worldManifold.normal;
+    logImpact(bodyA, x, y, normal);
+    logImpact(bodyB, x, y, normal);
+  }
+
+  private void logImpact(Body body, double x, double y, Vec2 normal) {
+    Vec2 velocity = body.getLinearVelocity();
+    if (Math.abs(velocity.x * normal.x) + Math.abs(velocity.y * normal.y) > 2) {
+      Object id = body.getUserData();
+      stepCollisions.add(x, y, normal.x, normal.y, worldTime.getAsDouble(), id instanceof Integer ? (Integer) id : -1);
+    }
+  }
+
+  /**
+   * Moves the collisions of the last step to the log ordered by body, which unlike the order of the contacts is the same
+   * in a world that holds only some of the balls. The order is a stable radix sort over buffers kept between steps.
+   */
+  public void flush() {
+    int size = stepCollisions.size();
+    if (size == 0) {
+      return;
+    }
+    if (order.length < size) {
+      order = new int[Math.max(size, order.length * 2)];
+      sorted = new int[order.length];
+    }
+    int maxKey = 0;
+    int previousKey = 0;
+    boolean inOrder = true;
+    for (int i = 0; i < size; i++) {
+      int key = key(i);
+      order[i] = i;
+      inOrder &= key >= previousKey;
+      previousKey = key;
+      maxKey = Math.max(maxKey, key);
+    }
+    if (!inOrder) {
+      for (int shift = 0; shift < Integer.SIZE && maxKey >>> shift != 0; shift += radixBits) {
+        sortByDigit(size, shift);
+      }
+    }
+    for (int n = 0; n < size; n++) {
+      int i = order[n];
+      collisions.add(stepCollisions.getX(i), stepCollisions.getY(i), stepCollisions.getNormalX(i),
+                     stepCollisions.getNormalY(i), stepCollisions.getTime(i), stepCollisions.getBodyId(i));
+    }
+    stepCollisions.clear();
+  }
+
+  /**
+   * Static bodies have the id -1, so the key shifts ids to start at 0.
+   */
+  private int key(int i) {
+    return stepCollisions.getBodyId(i) + 1;
+  }
+
+  private void sortByDigit(int size, int shift) {
+    int[] counts = this.counts;
+    Arrays.fill(counts, 0);
+    for (int n = 0; n < size; n++) {
+      counts[(key(order[n]) >>> shift & radix - 1) + 1]++;
+    }
+    for (int digit = 0; digit < radix; digit++) {
+      counts[digit + 1] += counts[digit];
+    }
+    for (int n = 0; n < size; n++) {
+      int i = order[n];
+      sorted[counts[key(i) >>> shift & radix - 1]++] = i;
+    }
+    int[] swap = order;
+    order = sorted;
+    sorted = swap;
+  }
+
+  @Override
+  public void endContact(Contact contact) {
+  }
+
+  @Override
+  public void preSolve(Contact contact, Manifold oldManifold) {
+  }
+
+  @Override
+  public void postSolve(Contact contact, ContactImpulse impulse) {
+  }
+}
@@ -0,0 +1,249 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.projectileflight.level.Level;
+import lemondead.projectileflight.level.objects.Cannon;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParameterSweep {
+  private static final int cellsPerTask = 4;
+
+  private final Level level;
+  private final int cannonIndex;
+  private final double[] angles;
+  private final double[] speeds;
+  private final float[] frictions;
+  private final float[] restitutions;
+  private final double maxTime;
+
+  private ParameterSweep(Level level, int cannonIndex, double[] angles, double[] speeds, float[] frictions, float[] restitutions,
+                         double maxTime) {
+    this.level = level;
+    this.cannonIndex = cannonIndex;
+    this.angles = angles;
+    this.speeds = speeds;
+    this.frictions = frictions;
+    this.restitutions = restitutions;
+    this.maxTime = maxTime;
+  }
+
+  public int size() {
+    return angles.length * speeds.length * frictions.length * restitutions.length;
+  }
+
+  public List<Result> run() {
+    return run(ForkJoinPool.commonPool());
+  }
+
+  public List<Result> run(ForkJoinPool pool) {
+    Result[] results = new Result[size()];
+    pool.invoke(new SweepTask(results, 0, results.length));
+    return Arrays.asList(results);
+  }
+
+  public Result runCell(int index) {
+    int angleIndex = index % angles.length;
+    index /= angles.length;
+    int speedIndex = index % speeds.length;
+    index /= speeds.length;
+    int frictionIndex = index % frictions.length;
+    int restitutionIndex = index / frictions.length;
+
+    double angle = angles[angleIndex];
+    double speed = speeds[speedIndex];
+    float friction = frictions[frictionIndex];
+    float restitution = restitutions[restitutionIndex];
+
+    Level copy = level.copy();
+    copy.setPhysicsConfig(copy.getPhysicsConfig().withBallFriction(friction).withBallRestitution(restitution));
+    Cannon cannon = (Cannon) copy.getObjects().get(cannonIndex);
+    cannon.setAngle(angle);
+    cannon.setInitialSpeed(speed);
+
+    SimulationRunner runner = new SimulationRunner(copy);
+    CollisionLog collisions = runner.getCollisionLog();
+    CollisionLog.Cursor cursor = collisions.cursor();
+    double maxHeight = runner.getBackend().getY(cannon.getBallIndex());
+    while (runner.getWorldTime() < maxTime) {
+      runner.step();
+      maxHeight = Math.max(maxHeight, runner.getBackend().getY(cannon.getBallIndex()));
+      while (cursor.hasNext()) {
+        int i = cursor.next();
+        if (collisions.getBodyId(i) == cannon.getBallIndex()) {
+          return new Result(angle, speed, friction, restitution, collisions.getX(i), collisions.getY(i), collisions.getTime(i), maxHeight);
+        }
+      }
+    }
+    return new Result(angle, speed, friction, restitution, Double.NaN, Double.NaN, Double.NaN, maxHeight);
+  }
+
+  private class SweepTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Result[] results;
+    private final int from;
+    private final int to;
+
+    private SweepTask(Result[] results, int from, int to) {
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= cellsPerTask) {
+        for (int i = from; i < to; i++) {
+          results[i] = runCell(i);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new SweepTask(results, from, middle), new SweepTask(results, middle, to));
+    }
+  }
+
+  public static final class Result {
+    private final double angle;
+    private final double initialSpeed;
+    private final float friction;
+    private final float restitution;
+    private final double impactX;
+    private final double impactY;
+    private final double timeOfFlight;
+    private final double maxHeight;
+
+    private Result(double angle, double initialSpeed, float friction, float restitution, double impactX, double impactY,
+                   double timeOfFlight, double maxHeight) {
+      this.angle = angle;
+      this.initialSpeed = initialSpeed;
+      this.friction = friction;
+      this.restitution = restitution;
+      this.impactX = impactX;
+      this.impactY = impactY;
+      this.timeOfFlight = timeOfFlight;
+      this.maxHeight = maxHeight;
+    }
+
+    public double getAngle() {
+      return angle;
+    }
+
+    public double getInitialSpeed() {
+      return initialSpeed;
+    }
+
+    public float getFriction() {
+      return friction;
+    }
+
+    public float getRestitution() {
+      return restitution;
+    }
+
+    public boolean hasImpact() {
+      return !Double.isNaN(timeOfFlight);
+    }
+
+    public double getImpactX() {
+      return impactX;
+    }
+
+    public double getImpactY() {
+      return impactY;
+    }
+
+    public double getTimeOfFlight() {
+      return timeOfFlight;
+    }
+
+    public double getMaxHeight() {
+      return maxHeight;
+    }
+  }
+
+  public static class Builder {
+    private Level level;
+    private int cannonIndex = -1;
+    private double[] angles;
+    private double[] speeds;
+    private float[] frictions;
+    private float[] restitutions;
+    private double maxTime = 60;
+
+    public Builder level(Level level, Cannon cannon) {
+      int index = level.getObjects().indexOf(cannon);
+      if (index == -1) {
+        throw new IllegalArgumentException("Cannon does not belong to the level.");
+      }
+      this.level = level;
+      this.cannonIndex = index;
+      return this;
+    }
+
+    public Builder angles(double min, double max, int count) {
+      angles = range(min, max, count);
+      return this;
+    }
+
+    public Builder angles(double... angles) {
+      this.angles = angles;
+      return this;
+    }
+
+    public Builder speeds(double min, double max, int count) {
+      speeds = range(min, max, count);
+      return this;
+    }
+
+    public Builder speeds(double... speeds) {
+      this.speeds = speeds;
+      return this;
+    }
+
+    public Builder frictions(float... frictions) {
+      this.frictions = frictions;
+      return this;
+    }
+
+    public Builder restitutions(float... restitutions) {
+      this.restitutions = restitutions;
+      return this;
+    }
+
+    public Builder maxTime(double maxTime) {
+      this.maxTime = maxTime;
+      return this;
+    }
+
+    public ParameterSweep build() {
+      if (level == null) {
+        throw new IllegalStateException("Level is not present.");
+      }
+      Cannon cannon = (Cannon) level.getObjects().get(cannonIndex);
+      PhysicsConfig config = level.getPhysicsConfig();
+      double[] angles = this.angles == null ? new double[] { cannon.getAngle() } : this.angles;
+      double[] speeds = this.speeds == null ? new double[] { cannon.getInitialSpeed() } : this.speeds;
+      float[] frictions = this.frictions == null ? new float[] { config.getBallFriction() } : this.frictions;
+      float[] restitutions = this.restitutions == null ? new float[] { config.getBallRestitution() } : this.restitutions;
+      if (angles.length == 0 || speeds.length == 0 || frictions.length == 0 || restitutions.length == 0) {
+        throw new IllegalStateException("Sweep grid cannot have empty axes.");
+      }
+      return new ParameterSweep(level.copy(), cannonIndex, angles, speeds, frictions, restitutions, maxTime);
+    }
+
+    private static double[] range(double min, double max, int count) {
+      if (count < 1) {
+        throw new IllegalArgumentException("Range must contain at least one value.");
+      }
+      double[] values = new double[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = count == 1 ? min : min + (max - min) * i / (count - 1);
+      }
+      return values;
+    }
+  }
+}
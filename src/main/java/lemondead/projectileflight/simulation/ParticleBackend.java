@@ -0,0 +1,471 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Struct-of-arrays integrator for balls flying among static boxes and the ground. Balls don't collide with each other, so
+ * each one is stepped on its own against a uniform grid of the boxes, and sleeping balls cost nothing.
+ */
+public class ParticleBackend implements PhysicsBackend {
+  private static final float linearSleepTolerance = 0.01f;
+  private static final float angularSleepTolerance = (float) (2 / 180.0 * Math.PI);
+  private static final float timeToSleep = 0.5f;
+  private static final float velocityThreshold = 1;
+  private static final float impactSpeed = 2;
+  private static final float groundExtent = 1E+6f;
+  private static final float groundFriction = 1;
+  private static final float minCellSize = 2;
+  private static final int maxGridCells = 1 << 20;
+  private static final int awakeFlag = 1;
+  private static final int pendingFlag = 2;
+
+  private final float gravityX;
+  private final float gravityY;
+  private CollisionLog collisions;
+  private final DoubleSupplier worldTime;
+
+  private int count = 0;
+  private int awakeCount = 0;
+  private float[] x = new float[0];
+  private float[] y = new float[0];
+  private float[] velocityX = new float[0];
+  private float[] velocityY = new float[0];
+  private float[] angle = new float[0];
+  private float[] angularVelocity = new float[0];
+  private float[] radius = new float[0];
+  private float[] friction = new float[0];
+  private float[] restitution = new float[0];
+  private float[] sleepTime = new float[0];
+  private boolean[] awake = new boolean[0];
+  private boolean[] touching = new boolean[0];
+  private boolean[] fixedRotation = new boolean[0];
+  private boolean[] launched = new boolean[0];
+  private long[] launchTick = new long[0];
+  private long nextLaunchTick = Long.MAX_VALUE;
+  private float maxRadius = 0;
+
+  private int boxCount = 0;
+  private float[] boxX = new float[0];
+  private float[] boxY = new float[0];
+  private float[] boxCos = new float[0];
+  private float[] boxSin = new float[0];
+  private float[] boxHalfWidth = new float[0];
+  private float[] boxHalfHeight = new float[0];
+  private float[] boxFriction = new float[0];
+  private float[] boxRestitution = new float[0];
+
+  private boolean gridDirty = true;
+  private float gridMinX;
+  private float gridMinY;
+  private float inverseCellSize;
+  private int gridWidth = 0;
+  private int gridHeight = 0;
+  private int[] cellStart = new int[1];
+  private int[] cellBoxes = new int[0];
+
+  public ParticleBackend(PhysicsConfig config, CollisionLog collisions, DoubleSupplier worldTime) {
+    Vec2 gravity = config.getGravity();
+    gravityX = (float) gravity.x();
+    gravityY = (float) gravity.y();
+    this.collisions = collisions;
+    this.worldTime = worldTime;
+  }
+
+  @Override
+  public int addBall(double x, double y, double velocityX, double velocityY, float radius, float density, float friction,
+                     float restitution, boolean fixedRotation, long launchTick) {
+    if (count == this.x.length) {
+      int capacity = Math.max(16, count * 2);
+      this.x = Arrays.copyOf(this.x, capacity);
+      this.y = Arrays.copyOf(this.y, capacity);
+      this.velocityX = Arrays.copyOf(this.velocityX, capacity);
+      this.velocityY = Arrays.copyOf(this.velocityY, capacity);
+      angle = Arrays.copyOf(angle, capacity);
+      angularVelocity = Arrays.copyOf(angularVelocity, capacity);
+      this.radius = Arrays.copyOf(this.radius, capacity);
+      this.friction = Arrays.copyOf(this.friction, capacity);
+      this.restitution = Arrays.copyOf(this.restitution, capacity);
+      sleepTime = Arrays.copyOf(sleepTime, capacity);
+      awake = Arrays.copyOf(awake, capacity);
+      touching = Arrays.copyOf(touching, capacity);
+      this.fixedRotation = Arrays.copyOf(this.fixedRotation, capacity);
+      launched = Arrays.copyOf(launched, capacity);
+      this.launchTick = Arrays.copyOf(this.launchTick, capacity);
+    }
+    int i = count++;
+    this.x[i] = (float) x;
+    this.y[i] = (float) y;
+    this.velocityX[i] = (float) velocityX;
+    this.velocityY[i] = (float) velocityY;
+    this.radius[i] = radius;
+    this.friction[i] = friction;
+    this.restitution[i] = restitution;
+    this.fixedRotation[i] = fixedRotation;
+    this.launchTick[i] = launchTick;
+    launched[i] = launchTick <= 0;
+    if (!launched[i]) {
+      nextLaunchTick = Math.min(nextLaunchTick, launchTick);
+    }
+    awake[i] = true;
+    awakeCount++;
+    if (radius > maxRadius) {
+      maxRadius = radius;
+      gridDirty = true;
+    }
+    return i;
+  }
+
+  @Override
+  public void addBox(double x, double y, double angle, float halfWidth, float halfHeight, float centerX, float centerY,
+                     float friction, float restitution) {
+    if (boxCount == boxX.length) {
+      int capacity = Math.max(16, boxCount * 2);
+      boxX = Arrays.copyOf(boxX, capacity);
+      boxY = Arrays.copyOf(boxY, capacity);
+      boxCos = Arrays.copyOf(boxCos, capacity);
+      boxSin = Arrays.copyOf(boxSin, capacity);
+      boxHalfWidth = Arrays.copyOf(boxHalfWidth, capacity);
+      boxHalfHeight = Arrays.copyOf(boxHalfHeight, capacity);
+      boxFriction = Arrays.copyOf(boxFriction, capacity);
+      boxRestitution = Arrays.copyOf(boxRestitution, capacity);
+    }
+    int i = boxCount++;
+    float cos = (float) Math.cos((float) angle);
+    float sin = (float) Math.sin((float) angle);
+    boxX[i] = (float) x + cos * centerX - sin * centerY;
+    boxY[i] = (float) y + sin * centerX + cos * centerY;
+    boxCos[i] = cos;
+    boxSin[i] = sin;
+    boxHalfWidth[i] = halfWidth;
+    boxHalfHeight[i] = halfHeight;
+    boxFriction[i] = friction;
+    boxRestitution[i] = restitution;
+    gridDirty = true;
+  }
+
+  @Override
+  public void launch(long tick) {
+    if (tick < nextLaunchTick) {
+      return;
+    }
+    nextLaunchTick = Long.MAX_VALUE;
+    for (int i = 0; i < count; i++) {
+      if (launched[i]) {
+        continue;
+      }
+      if (launchTick[i] <= tick) {
+        launched[i] = true;
+      } else {
+        nextLaunchTick = Math.min(nextLaunchTick, launchTick[i]);
+      }
+    }
+  }
+
+  @Override
+  public void step(float timeStep) {
+    if (gridDirty) {
+      buildGrid();
+    }
+    for (int i = 0; i < count; i++) {
+      if (!awake[i] || !launched[i]) {
+        continue;
+      }
+      velocityX[i] += gravityX * timeStep;
+      velocityY[i] += gravityY * timeStep;
+      x[i] += velocityX[i] * timeStep;
+      y[i] += velocityY[i] * timeStep;
+      angle[i] += angularVelocity[i] * timeStep;
+
+      boolean wasTouching = touching[i];
+      boolean touchingNow = false;
+      float r = radius[i];
+      if (y[i] < r && Math.abs(x[i]) < groundExtent) {
+        resolve(i, 0, 1, r - y[i], groundFriction, 0, wasTouching);
+        touchingNow = true;
+      }
+      int cell = cellOf(x[i], y[i]);
+      if (cell >= 0) {
+        for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+          touchingNow |= collideBox(i, cellBoxes[j], wasTouching);
+        }
+      }
+      touching[i] = touchingNow;
+
+      float speedSq = velocityX[i] * velocityX[i] + velocityY[i] * velocityY[i];
+      float angularSpeed = angularVelocity[i];
+      if (speedSq > linearSleepTolerance * linearSleepTolerance || angularSpeed * angularSpeed > angularSleepTolerance * angularSleepTolerance) {
+        sleepTime[i] = 0;
+      } else if ((sleepTime[i] += timeStep) >= timeToSleep) {
+        awake[i] = false;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        angularVelocity[i] = 0;
+        awakeCount--;
+      }
+    }
+  }
+
+  private boolean collideBox(int i, int box, boolean wasTouching) {
+    float cos = boxCos[box];
+    float sin = boxSin[box];
+    float dx = x[i] - boxX[box];
+    float dy = y[i] - boxY[box];
+    float localX = dx * cos + dy * sin;
+    float localY = -dx * sin + dy * cos;
+    float halfWidth = boxHalfWidth[box];
+    float halfHeight = boxHalfHeight[box];
+    float offsetX = localX - Math.max(-halfWidth, Math.min(localX, halfWidth));
+    float offsetY = localY - Math.max(-halfHeight, Math.min(localY, halfHeight));
+    float distanceSq = offsetX * offsetX + offsetY * offsetY;
+    float r = radius[i];
+    if (distanceSq >= r * r) {
+      return false;
+    }
+    float normalX;
+    float normalY;
+    float penetration;
+    if (distanceSq > 1E-12f) {
+      float distance = (float) Math.sqrt(distanceSq);
+      normalX = offsetX / distance;
+      normalY = offsetY / distance;
+      penetration = r - distance;
+    } else {
+      float depthX = halfWidth - Math.abs(localX);
+      float depthY = halfHeight - Math.abs(localY);
+      if (depthX < depthY) {
+        normalX = localX < 0 ? -1 : 1;
+        normalY = 0;
+        penetration = depthX + r;
+      } else {
+        normalX = 0;
+        normalY = localY < 0 ? -1 : 1;
+        penetration = depthY + r;
+      }
+    }
+    resolve(i, normalX * cos - normalY * sin, normalX * sin + normalY * cos, penetration, boxFriction[box], boxRestitution[box],
+            wasTouching);
+    return true;
+  }
+
+  private void resolve(int i, float normalX, float normalY, float penetration, float surfaceFriction, float surfaceRestitution,
+                       boolean wasTouching) {
+    float r = radius[i];
+    x[i] += normalX * penetration;
+    y[i] += normalY * penetration;
+    float vx = velocityX[i];
+    float vy = velocityY[i];
+    if (!wasTouching && Math.abs(vx * normalX) + Math.abs(vy * normalY) > impactSpeed) {
+      collisions.add(x[i] - normalX * r, y[i] - normalY * r, normalX, normalY, worldTime.getAsDouble(), i);
+    }
+    float normalSpeed = vx * normalX + vy * normalY;
+    if (normalSpeed >= 0) {
+      return;
+    }
+    float bounce = -normalSpeed < velocityThreshold ? 0 : Math.max(restitution[i], surfaceRestitution);
+    float normalChange = -(1 + bounce) * normalSpeed;
+    vx += normalChange * normalX;
+    vy += normalChange * normalY;
+
+    float tangentX = -normalY;
+    float tangentY = normalX;
+    float slip = vx * tangentX + vy * tangentY - angularVelocity[i] * r;
+    float maxFriction = (float) Math.sqrt(friction[i] * surfaceFriction) * normalChange;
+    float tangentChange = fixedRotation[i] ? -slip : -slip / 3;
+    tangentChange = Math.max(-maxFriction, Math.min(tangentChange, maxFriction));
+    velocityX[i] = vx + tangentChange * tangentX;
+    velocityY[i] = vy + tangentChange * tangentY;
+    if (!fixedRotation[i]) {
+      angularVelocity[i] -= 2 * tangentChange / r;
+    }
+  }
+
+  private int cellOf(float x, float y) {
+    float cellX = (x - gridMinX) * inverseCellSize;
+    float cellY = (y - gridMinY) * inverseCellSize;
+    if (!(cellX >= 0 && cellX < gridWidth && cellY >= 0 && cellY < gridHeight)) {
+      return -1;
+    }
+    return (int) cellY * gridWidth + (int) cellX;
+  }
+
+  private void buildGrid() {
+    gridDirty = false;
+    if (boxCount == 0) {
+      gridWidth = 0;
+      gridHeight = 0;
+      return;
+    }
+    float[] minX = new float[boxCount];
+    float[] minY = new float[boxCount];
+    float[] maxX = new float[boxCount];
+    float[] maxY = new float[boxCount];
+    float boundsMinX = Float.POSITIVE_INFINITY;
+    float boundsMinY = Float.POSITIVE_INFINITY;
+    float boundsMaxX = Float.NEGATIVE_INFINITY;
+    float boundsMaxY = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < boxCount; i++) {
+      float cos = Math.abs(boxCos[i]);
+      float sin = Math.abs(boxSin[i]);
+      float extentX = cos * boxHalfWidth[i] + sin * boxHalfHeight[i] + maxRadius;
+      float extentY = sin * boxHalfWidth[i] + cos * boxHalfHeight[i] + maxRadius;
+      minX[i] = boxX[i] - extentX;
+      minY[i] = boxY[i] - extentY;
+      maxX[i] = boxX[i] + extentX;
+      maxY[i] = boxY[i] + extentY;
+      boundsMinX = Math.min(boundsMinX, minX[i]);
+      boundsMinY = Math.min(boundsMinY, minY[i]);
+      boundsMaxX = Math.max(boundsMaxX, maxX[i]);
+      boundsMaxY = Math.max(boundsMaxY, maxY[i]);
+    }
+    float cellSize = minCellSize;
+    while ((double) ((boundsMaxX - boundsMinX) / cellSize + 1) * ((boundsMaxY - boundsMinY) / cellSize + 1) > maxGridCells) {
+      cellSize *= 2;
+    }
+    gridMinX = boundsMinX;
+    gridMinY = boundsMinY;
+    inverseCellSize = 1 / cellSize;
+    gridWidth = (int) ((boundsMaxX - boundsMinX) * inverseCellSize) + 1;
+    gridHeight = (int) ((boundsMaxY - boundsMinY) * inverseCellSize) + 1;
+
+    cellStart = new int[gridWidth * gridHeight + 1];
+    for (int pass = 0; pass < 2; pass++) {
+      int[] fill = pass == 0 ? null : Arrays.copyOf(cellStart, cellStart.length - 1);
+      for (int i = 0; i < boxCount; i++) {
+        int fromX = (int) ((minX[i] - gridMinX) * inverseCellSize);
+        int fromY = (int) ((minY[i] - gridMinY) * inverseCellSize);
+        int toX = Math.min(gridWidth - 1, (int) ((maxX[i] - gridMinX) * inverseCellSize));
+        int toY = Math.min(gridHeight - 1, (int) ((maxY[i] - gridMinY) * inverseCellSize));
+        for (int cellY = fromY; cellY <= toY; cellY++) {
+          for (int cellX = fromX; cellX <= toX; cellX++) {
+            int cell = cellY * gridWidth + cellX;
+            if (pass == 0) {
+              cellStart[cell + 1]++;
+            } else {
+              cellBoxes[fill[cell]++] = i;
+            }
+          }
+        }
+      }
+      if (pass == 0) {
+        for (int cell = 0; cell < gridWidth * gridHeight; cell++) {
+          cellStart[cell + 1] += cellStart[cell];
+        }
+        cellBoxes = new int[cellStart[gridWidth * gridHeight]];
+      }
+    }
+  }
+
+  @Override
+  public void setCollisions(CollisionLog collisions) {
+    this.collisions = collisions;
+  }
+
+  @Override
+  public int getBodyCount() {
+    return count;
+  }
+
+  @Override
+  public double getX(int index) {
+    checkIndex(index);
+    return x[index];
+  }
+
+  @Override
+  public double getY(int index) {
+    checkIndex(index);
+    return y[index];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+    }
+  }
+
+  @Override
+  public void writeBodies(double[] bodies) {
+    for (int i = 0; i < count; i++) {
+      int offset = i * WorldSnapshot.stride;
+      bodies[offset] = x[i];
+      bodies[offset + 1] = y[i];
+      bodies[offset + 2] = velocityX[i];
+      bodies[offset + 3] = velocityY[i];
+      bodies[offset + 4] = angle[i];
+      bodies[offset + 5] = angularVelocity[i];
+    }
+  }
+
+  @Override
+  public boolean isSettled() {
+    return awakeCount == 0;
+  }
+
+  @Override
+  public float[] saveBodies() {
+    float[] state = new float[count * Checkpoint.stride];
+    for (int i = 0; i < count; i++) {
+      int offset = i * Checkpoint.stride;
+      state[offset] = x[i];
+      state[offset + 1] = y[i];
+      state[offset + 2] = angle[i];
+      state[offset + 3] = velocityX[i];
+      state[offset + 4] = velocityY[i];
+      state[offset + 5] = angularVelocity[i];
+      state[offset + 6] = sleepTime[i];
+      state[offset + 7] = (awake[i] ? awakeFlag : 0) | (launched[i] ? 0 : pendingFlag);
+    }
+    return state;
+  }
+
+  /**
+   * @return indices of the balls touching the ground or a box
+   */
+  @Override
+  public int[] saveContacts() {
+    int touchingCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (touching[i]) {
+        touchingCount++;
+      }
+    }
+    int[] contacts = new int[touchingCount];
+    for (int i = 0, j = 0; i < count; i++) {
+      if (touching[i]) {
+        contacts[j++] = i;
+      }
+    }
+    return contacts;
+  }
+
+  @Override
+  public void load(float[] state, int[] contacts) {
+    awakeCount = 0;
+    nextLaunchTick = Long.MAX_VALUE;
+    for (int i = 0; i < count; i++) {
+      int offset = i * Checkpoint.stride;
+      x[i] = state[offset];
+      y[i] = state[offset + 1];
+      angle[i] = state[offset + 2];
+      velocityX[i] = state[offset + 3];
+      velocityY[i] = state[offset + 4];
+      angularVelocity[i] = state[offset + 5];
+      sleepTime[i] = state[offset + 6];
+      awake[i] = ((int) state[offset + 7] & awakeFlag) != 0;
+      launched[i] = ((int) state[offset + 7] & pendingFlag) == 0;
+      if (!launched[i]) {
+        nextLaunchTick = Math.min(nextLaunchTick, launchTick[i]);
+      }
+      touching[i] = false;
+      if (awake[i]) {
+        awakeCount++;
+      }
+    }
+    for (int contact : contacts) {
+      touching[contact] = true;
+    }
+  }
+}
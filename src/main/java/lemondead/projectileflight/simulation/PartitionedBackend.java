@@ -0,0 +1,366 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Simulates every group of balls in a world of its own and steps the worlds in parallel once stepping them one after another
+ * takes longer than {@link PhysicsConfig#getParallelThreshold}. The worlds are built on first use, each from its group's balls
+ * and the static bodies they can reach, in the order the level added them, so a group moves exactly as it would in a shared
+ * world where no other group gets in its way. Backends log the collisions of a step ordered by body, and the worlds' logs are
+ * merged in group order, so the shared log is the one such a world would write.
+ */
+public class PartitionedBackend implements PhysicsBackend {
+  private static final int partitionsPerTask = 1;
+  private static final double reachSlackFactor = 1.5;
+  private static final double reachSlack = 5;
+
+  private final PhysicsConfig config;
+  private CollisionLog collisions;
+  private final DoubleSupplier worldTime;
+  private final ForkJoinPool pool;
+  private final long parallelThreshold;
+  private final List<Added> added = new ArrayList<>();
+  private final List<Group> groups = new ArrayList<>();
+  private List<Partition> partitions;
+  private Group current;
+  private PhysicsQuality quality;
+  private int count = 0;
+  private int[] partitionOf = new int[16];
+  private int[] localIndex = new int[16];
+  private long[] stepTimes = new long[0];
+  private long stepTime = 0;
+
+  public PartitionedBackend(PhysicsConfig config, CollisionLog collisions, DoubleSupplier worldTime, ForkJoinPool pool) {
+    this.config = config;
+    this.collisions = collisions;
+    this.worldTime = worldTime;
+    this.pool = pool;
+    parallelThreshold = config.getParallelThreshold() * 1000L;
+    quality = config.getQuality();
+  }
+
+  @Override
+  public void startGroup() {
+    current = null;
+  }
+
+  @Override
+  public int addBall(double x, double y, double velocityX, double velocityY, float radius, float density, float friction,
+                     float restitution, boolean fixedRotation, long launchTick) {
+    checkNotBuilt();
+    if (current == null) {
+      current = new Group();
+      groups.add(current);
+    }
+    current.addBall(y, velocityX, velocityY, radius, density, config.getGravity());
+    added.add(new Added(groups.size() - 1, b -> b.addBall(x, y, velocityX, velocityY, radius, density, friction, restitution,
+                                                          fixedRotation, launchTick), 0, restitution));
+    if (count == partitionOf.length) {
+      partitionOf = Arrays.copyOf(partitionOf, count * 2);
+      localIndex = Arrays.copyOf(localIndex, count * 2);
+    }
+    partitionOf[count] = groups.size() - 1;
+    localIndex[count] = current.count++;
+    return count++;
+  }
+
+  @Override
+  public void addBox(double x, double y, double angle, float halfWidth, float halfHeight, float centerX, float centerY,
+                     float friction, float restitution) {
+    checkNotBuilt();
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+    double bottom = y + sin * centerX + cos * centerY - Math.abs(sin) * halfWidth - Math.abs(cos) * halfHeight;
+    added.add(new Added(-1, b -> b.addBox(x, y, angle, halfWidth, halfHeight, centerX, centerY, friction, restitution), bottom,
+                        restitution));
+  }
+
+  private void checkNotBuilt() {
+    if (partitions != null) {
+      throw new IllegalStateException("Bodies must be added before the backend is used");
+    }
+  }
+
+  /**
+   * Gives every group a world with its balls and the static bodies below the highest point they can reach. With gravity
+   * pointing straight down and no restitution above 1, the balls of a group can't climb higher than if all of their energy
+   * ended up in the lightest one. Numerical errors add a little energy, hence the slack.
+   */
+  private void build() {
+    if (partitions != null) {
+      return;
+    }
+    Vec2 gravity = config.getGravity();
+    boolean bounded = gravity.x() == 0 && gravity.y() < 0;
+    for (Added body : added) {
+      bounded &= body.restitution <= 1;
+    }
+    partitions = new ArrayList<>(groups.size());
+    for (int group = 0; group < groups.size(); group++) {
+      Group balls = groups.get(group);
+      double reach = bounded ? balls.getReach() * reachSlackFactor + reachSlack : Double.POSITIVE_INFINITY;
+      Partition partition = new Partition(config, worldTime, balls.count);
+      for (Added body : added) {
+        if (body.group == group || body.group < 0 && body.bottom <= reach) {
+          body.add.accept(partition.backend);
+        }
+      }
+      partition.backend.setQuality(quality);
+      partitions.add(partition);
+    }
+    for (int i = 0; i < count; i++) {
+      partitions.get(partitionOf[i]).globalIndices[localIndex[i]] = i;
+    }
+    stepTimes = new long[partitions.size()];
+  }
+
+  @Override
+  public void launch(long tick) {
+    build();
+    for (Partition partition : partitions) {
+      partition.backend.launch(tick);
+    }
+  }
+
+  @Override
+  public void setQuality(PhysicsQuality quality) {
+    this.quality = quality;
+    if (partitions != null) {
+      for (Partition partition : partitions) {
+        partition.backend.setQuality(quality);
+      }
+    }
+  }
+
+  /**
+   * Decides between parallel and sequential stepping by how long all worlds took to step the last time, which costs one
+   * sequential step at the start and doesn't change the result either way.
+   */
+  @Override
+  public void step(float timeStep) {
+    build();
+    if (partitions.size() > 1 && pool.getParallelism() > 1 && stepTime >= parallelThreshold) {
+      pool.invoke(new StepTask(timeStep, 0, partitions.size()));
+    } else {
+      for (int i = 0; i < partitions.size(); i++) {
+        stepPartition(i, timeStep);
+      }
+    }
+    stepTime = 0;
+    for (long time : stepTimes) {
+      stepTime += time;
+    }
+    for (Partition partition : partitions) {
+      CollisionLog log = partition.collisions;
+      for (int i = 0; i < log.size(); i++) {
+        int bodyId = log.getBodyId(i);
+        collisions.add(log.getX(i), log.getY(i), log.getNormalX(i), log.getNormalY(i), log.getTime(i),
+                       bodyId >= 0 ? partition.globalIndices[bodyId] : bodyId);
+      }
+      log.clear();
+    }
+  }
+
+  private void stepPartition(int index, float timeStep) {
+    long start = System.nanoTime();
+    partitions.get(index).backend.step(timeStep);
+    stepTimes[index] = System.nanoTime() - start;
+  }
+
+  @Override
+  public void setCollisions(CollisionLog collisions) {
+    this.collisions = collisions;
+  }
+
+  @Override
+  public int getBodyCount() {
+    return count;
+  }
+
+  @Override
+  public double getX(int index) {
+    checkIndex(index);
+    build();
+    return partitions.get(partitionOf[index]).backend.getX(localIndex[index]);
+  }
+
+  @Override
+  public double getY(int index) {
+    checkIndex(index);
+    build();
+    return partitions.get(partitionOf[index]).backend.getY(localIndex[index]);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+    }
+  }
+
+  @Override
+  public void writeBodies(double[] bodies) {
+    build();
+    for (Partition partition : partitions) {
+      double[] local = new double[partition.count * WorldSnapshot.stride];
+      partition.backend.writeBodies(local);
+      for (int i = 0; i < partition.count; i++) {
+        System.arraycopy(local, i * WorldSnapshot.stride, bodies, partition.globalIndices[i] * WorldSnapshot.stride,
+                         WorldSnapshot.stride);
+      }
+    }
+  }
+
+  @Override
+  public boolean isSettled() {
+    build();
+    for (Partition partition : partitions) {
+      if (!partition.backend.isSettled()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public float[] saveBodies() {
+    build();
+    float[] state = new float[count * Checkpoint.stride];
+    for (Partition partition : partitions) {
+      float[] local = partition.backend.saveBodies();
+      for (int i = 0; i < partition.count; i++) {
+        System.arraycopy(local, i * Checkpoint.stride, state, partition.globalIndices[i] * Checkpoint.stride, Checkpoint.stride);
+      }
+    }
+    return state;
+  }
+
+  /**
+   * @return for every world, the length of its contacts followed by the contacts themselves
+   */
+  @Override
+  public int[] saveContacts() {
+    build();
+    int[][] contacts = new int[partitions.size()][];
+    int length = 0;
+    for (int i = 0; i < contacts.length; i++) {
+      contacts[i] = partitions.get(i).backend.saveContacts();
+      length += contacts[i].length + 1;
+    }
+    int[] saved = new int[length];
+    int offset = 0;
+    for (int[] partitionContacts : contacts) {
+      saved[offset++] = partitionContacts.length;
+      System.arraycopy(partitionContacts, 0, saved, offset, partitionContacts.length);
+      offset += partitionContacts.length;
+    }
+    return saved;
+  }
+
+  @Override
+  public void load(float[] state, int[] contacts) {
+    build();
+    int offset = 0;
+    for (Partition partition : partitions) {
+      float[] local = new float[partition.count * Checkpoint.stride];
+      for (int i = 0; i < partition.count; i++) {
+        System.arraycopy(state, partition.globalIndices[i] * Checkpoint.stride, local, i * Checkpoint.stride, Checkpoint.stride);
+      }
+      int length = contacts[offset++];
+      partition.backend.load(local, Arrays.copyOfRange(contacts, offset, offset + length));
+      offset += length;
+    }
+  }
+
+  /**
+   * A ball or static body as the level added it.
+   */
+  private static final class Added {
+    /**
+     * Group of the ball, or -1 for static bodies
+     */
+    private final int group;
+    private final Consumer<PhysicsBackend> add;
+    private final double bottom;
+    private final float restitution;
+
+    private Added(int group, Consumer<PhysicsBackend> add, double bottom, float restitution) {
+      this.group = group;
+      this.add = add;
+      this.bottom = bottom;
+      this.restitution = restitution;
+    }
+  }
+
+  private static final class Group {
+    private int count = 0;
+    private double energy = 0;
+    private double minMass = Double.POSITIVE_INFINITY;
+    private double maxRadius = 0;
+    private boolean aboveGround = true;
+
+    /**
+     * Adds the ball's energy, divided by the gravity, with the ground as zero.
+     */
+    private void addBall(double y, double velocityX, double velocityY, float radius, float density, Vec2 gravity) {
+      double mass = density * Math.PI * radius * radius;
+      energy += mass * (y + (velocityX * velocityX + velocityY * velocityY) / (-2 * gravity.y()));
+      minMass = Math.min(minMass, mass);
+      maxRadius = Math.max(maxRadius, radius);
+      aboveGround &= y >= 0 && mass > 0;
+    }
+
+    /**
+     * @return height above which no ball of the group can touch anything
+     */
+    private double getReach() {
+      return aboveGround ? energy / minMass + maxRadius : Double.POSITIVE_INFINITY;
+    }
+  }
+
+  private static final class Partition {
+    private final PhysicsBackend backend;
+    private final CollisionLog collisions = new CollisionLog();
+    private final int count;
+    private final int[] globalIndices;
+
+    private Partition(PhysicsConfig config, DoubleSupplier worldTime, int count) {
+      backend = PhysicsBackend.createWorld(config, collisions, worldTime);
+      this.count = count;
+      globalIndices = new int[count];
+    }
+  }
+
+  private class StepTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final float timeStep;
+    private final int from;
+    private final int to;
+
+    private StepTask(float timeStep, int from, int to) {
+      this.timeStep = timeStep;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= partitionsPerTask) {
+        for (int i = from; i < to; i++) {
+          stepPartition(i, timeStep);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new StepTask(timeStep, from, middle), new StepTask(timeStep, middle, to));
+      }
+    }
+  }
+}
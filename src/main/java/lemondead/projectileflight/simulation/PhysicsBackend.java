@@ -0,0 +1,98 @@
+package lemondead.projectileflight.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A physics world that level objects describe themselves to. Every backend has a static ground whose top is at y = 0, and
+ * numbers its dynamic bodies in the order they were added.
+ */
+public interface PhysicsBackend {
+  static PhysicsBackend create(PhysicsConfig config, CollisionLog collisions, DoubleSupplier worldTime) {
+    if (config.isPartitioned()) {
+      return new PartitionedBackend(config, collisions, worldTime, ForkJoinPool.commonPool());
+    }
+    return createWorld(config, collisions, worldTime);
+  }
+
+  /**
+   * @return a single world of the configured type
+   */
+  static PhysicsBackend createWorld(PhysicsConfig config, CollisionLog collisions, DoubleSupplier worldTime) {
+    switch (config.getBackend()) {
+      case PARTICLES:
+        return new ParticleBackend(config, collisions, worldTime);
+      case BOX2D:
+      default:
+        return new Box2DBackend(config, collisions, worldTime);
+    }
+  }
+
+  /**
+   * Starts a group of balls. Backends that split the level into several worlds never let balls of different groups touch.
+   */
+  default void startGroup() {
+  }
+
+  /**
+   * Adds a ball that stays where it is, taking no part in the simulation, until it is launched at {@code launchTick}.
+   *
+   * @return index of the ball among dynamic bodies
+   */
+  int addBall(double x, double y, double velocityX, double velocityY, float radius, float density, float friction,
+              float restitution, boolean fixedRotation, long launchTick);
+
+  /**
+   * Adds a static box, rotated by {@code angle} around {@code (x, y)}, with its center offset by {@code (centerX, centerY)}
+   * before the rotation.
+   */
+  void addBox(double x, double y, double angle, float halfWidth, float halfHeight, float centerX, float centerY, float friction,
+              float restitution);
+
+  /**
+   * Launches the balls whose launch tick is at most {@code tick}. Called before every step and after loading a checkpoint.
+   */
+  void launch(long tick);
+
+  /**
+   * Applies the solver settings of a profile to the following steps. Sub-steps are up to the caller.
+   */
+  default void setQuality(PhysicsQuality quality) {
+  }
+
+  void step(float timeStep);
+
+  /**
+   * Logs the collisions of the following steps to {@code collisions} instead.
+   */
+  void setCollisions(CollisionLog collisions);
+
+  int getBodyCount();
+
+  double getX(int index);
+
+  double getY(int index);
+
+  /**
+   * Writes position, velocity, angle and angular velocity of every dynamic body with {@link WorldSnapshot#stride}.
+   */
+  void writeBodies(double[] bodies);
+
+  boolean isSettled();
+
+  /**
+   * @return body state with {@link Checkpoint#stride}
+   */
+  float[] saveBodies();
+
+  /**
+   * @return backend-specific state of the contacts and anything else, besides the bodies, that the next step depends on
+   */
+  int[] saveContacts();
+
+  /**
+   * Applies state saved by a backend of the same type that was built from the same level, in place and at any point of the
+   * run. Stepping on must give exactly the result the saving backend got.
+   */
+  void load(float[] bodies, int[] contacts);
+}
@@ -0,0 +1,208 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.Configuration;
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.utils.ContentHash;
+
+import java.util.function.Predicate;
+
+public final class PhysicsConfig {
+  public static final PhysicsConfig DEFAULT = new PhysicsConfig(Vec2.of(0, -9.8), 0.5f, 0.5f, true, Backend.BOX2D, Worlds.AUTO,
+                                                                 1, 0.1, 0, PhysicsQuality.BALANCED, 200);
+
+  private final Vec2 gravity;
+  private final float ballFriction;
+  private final float ballRestitution;
+  private final boolean ballRotationEnabled;
+  private final Backend backend;
+  private final Worlds worlds;
+  private final int shotCount;
+  private final double shotInterval;
+  private final double shotSpread;
+  private final PhysicsQuality quality;
+  private final int parallelThreshold;
+
+  /**
+   * @param shotCount         balls every cannon fires
+   * @param shotInterval      seconds between two shots of a cannon
+   * @param shotSpread        angle in radians between the first and the last shot, centered on the cannon's angle
+   * @param parallelThreshold microseconds a step of all separate worlds must take one after another before they are
+   *                          stepped in parallel
+   */
+  public PhysicsConfig(Vec2 gravity, float ballFriction, float ballRestitution, boolean ballRotationEnabled, Backend backend,
+                       Worlds worlds, int shotCount, double shotInterval, double shotSpread, PhysicsQuality quality,
+                       int parallelThreshold) {
+    this.gravity = gravity;
+    this.ballFriction = ballFriction;
+    this.ballRestitution = ballRestitution;
+    this.ballRotationEnabled = ballRotationEnabled;
+    this.backend = backend;
+    this.worlds = worlds;
+    this.shotCount = shotCount;
+    this.shotInterval = shotInterval;
+    this.shotSpread = shotSpread;
+    this.quality = quality;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  public static PhysicsConfig load(Configuration configuration) {
+    Predicate<String> isCoefficient = s -> {
+      float f;
+      try {
+        f = Float.parseFloat(s);
+      } catch (NumberFormatException e) {
+        return false;
+      }
+      return f >= 0 && f <= 1;
+    };
+    float friction = Float.parseFloat(configuration.getValue("physics.ball_friction_coefficient", "0.5", isCoefficient));
+    float restitution = Float.parseFloat(configuration.getValue("physics.ball_restitution_coefficient", "0.5", isCoefficient));
+    boolean rotationEnabled = Boolean.parseBoolean(
+        configuration.getValue("physics.ball_rotation_enabled", "true", s -> s.toLowerCase().matches("(true)|(false)")));
+    double gravX = configuration.getValueParsed("physics.gravity_x", "0", Double::parseDouble);
+    double gravY = configuration.getValueParsed("physics.gravity_y", "-9.8", Double::parseDouble);
+    Backend backend = configuration.getEnumValue("physics.backend", Backend.BOX2D);
+    Worlds worlds = configuration.getEnumValue("physics.worlds", Worlds.AUTO);
+    int shotCount = configuration.getValueParsed("salvo.shot_count", "1", s -> {
+      int i = Integer.parseInt(s);
+      return i > 0 ? i : null;
+    });
+    double shotInterval = configuration.getValueParsed("salvo.interval", "0.1", s -> {
+      double d = Double.parseDouble(s);
+      return d >= 0 ? d : null;
+    });
+    double shotSpread = Math.toRadians(configuration.getValueParsed("salvo.spread_degrees", "0", Double::parseDouble));
+    PhysicsQuality quality = configuration.getEnumValue("physics.quality", PhysicsQuality.BALANCED);
+    int parallelThreshold = configuration.getValueParsed("physics.parallel_threshold_us", "200", s -> {
+      int i = Integer.parseInt(s);
+      return i >= 0 ? i : null;
+    });
+    return new PhysicsConfig(Vec2.of(gravX, gravY), friction, restitution, rotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public Vec2 getGravity() {
+    return gravity;
+  }
+
+  public float getBallFriction() {
+    return ballFriction;
+  }
+
+  public float getBallRestitution() {
+    return ballRestitution;
+  }
+
+  public boolean isBallRotationEnabled() {
+    return ballRotationEnabled;
+  }
+
+  public Backend getBackend() {
+    return backend;
+  }
+
+  public Worlds getWorlds() {
+    return worlds;
+  }
+
+  /**
+   * @return whether the balls of every cannon are simulated in a world of their own
+   */
+  public boolean isPartitioned() {
+    return worlds == Worlds.PER_CANNON || worlds == Worlds.AUTO && backend == Backend.PARTICLES;
+  }
+
+  public int getShotCount() {
+    return shotCount;
+  }
+
+  public double getShotInterval() {
+    return shotInterval;
+  }
+
+  public double getShotSpread() {
+    return shotSpread;
+  }
+
+  public PhysicsQuality getQuality() {
+    return quality;
+  }
+
+  /**
+   * Doesn't change the result, so it isn't part of the {@link #contentHash}.
+   *
+   * @return microseconds a step of all separate worlds must take one after another before they are stepped in parallel
+   */
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  public long contentHash(long hash) {
+    hash = ContentHash.mix(hash, gravity.x());
+    hash = ContentHash.mix(hash, gravity.y());
+    hash = ContentHash.mix(hash, ballFriction);
+    hash = ContentHash.mix(hash, ballRestitution);
+    hash = ContentHash.mix(hash, ballRotationEnabled);
+    hash = ContentHash.mix(hash, backend.ordinal());
+    hash = ContentHash.mix(hash, worlds.ordinal());
+    hash = ContentHash.mix(hash, shotCount);
+    hash = ContentHash.mix(hash, shotInterval);
+    hash = ContentHash.mix(hash, shotSpread);
+    return ContentHash.mix(hash, quality.ordinal());
+  }
+
+  public PhysicsConfig withBallFriction(float ballFriction) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withBallRestitution(float ballRestitution) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withBackend(Backend backend) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withWorlds(Worlds worlds) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withSalvo(int shotCount, double shotInterval, double shotSpread) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withQuality(PhysicsQuality quality) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public PhysicsConfig withParallelThreshold(int parallelThreshold) {
+    return new PhysicsConfig(gravity, ballFriction, ballRestitution, ballRotationEnabled, backend, worlds, shotCount, shotInterval,
+                             shotSpread, quality, parallelThreshold);
+  }
+
+  public enum Backend {
+    BOX2D,
+    PARTICLES
+  }
+
+  public enum Worlds {
+    /**
+     * All cannons share one world
+     */
+    SHARED,
+    /**
+     * Every cannon gets its own world with the static bodies, so balls of different cannons pass through each other
+     */
+    PER_CANNON,
+    /**
+     * Separate worlds where that can't change the result, which is when balls never collide with each other anyway
+     */
+    AUTO
+  }
+}
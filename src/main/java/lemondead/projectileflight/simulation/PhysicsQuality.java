@@ -0,0 +1,70 @@
+package lemondead.projectileflight.simulation;
+
+/**
+ * How much work goes into every tick. Ticks stay {@link SimulationRunner#TIME_STEP} long, since timelines, replays and
+ * launch times count them, so a higher step rate is reached by splitting each tick into sub-steps.
+ */
+public enum PhysicsQuality {
+  /**
+   * For sweeps and big scenes, balls may sink into walls a little and fast ones may pass through thin walls
+   */
+  FAST(1, 6, 2, true, false),
+  BALANCED(1, 16, 8, true, true),
+  /**
+   * For exact replays, four times as many steps with more solver iterations
+   */
+  ACCURATE(4, 24, 12, true, true);
+
+  private final int subSteps;
+  private final int velocityIterations;
+  private final int positionIterations;
+  private final boolean warmStarting;
+  private final boolean continuousCollision;
+
+  PhysicsQuality(int subSteps, int velocityIterations, int positionIterations, boolean warmStarting, boolean continuousCollision) {
+    this.subSteps = subSteps;
+    this.velocityIterations = velocityIterations;
+    this.positionIterations = positionIterations;
+    this.warmStarting = warmStarting;
+    this.continuousCollision = continuousCollision;
+  }
+
+  public int getSubSteps() {
+    return subSteps;
+  }
+
+  public float getSubStep() {
+    return SimulationRunner.TIME_STEP / subSteps;
+  }
+
+  public double getStepRate() {
+    return subSteps / (double) SimulationRunner.TIME_STEP;
+  }
+
+  public int getVelocityIterations() {
+    return velocityIterations;
+  }
+
+  public int getPositionIterations() {
+    return positionIterations;
+  }
+
+  public boolean isWarmStarting() {
+    return warmStarting;
+  }
+
+  public boolean isContinuousCollision() {
+    return continuousCollision;
+  }
+
+  public PhysicsQuality next() {
+    return values()[(ordinal() + 1) % values().length];
+  }
+
+  /**
+   * @return the next cheaper profile, or this one if it is the cheapest
+   */
+  public PhysicsQuality lower() {
+    return ordinal() == 0 ? this : values()[ordinal() - 1];
+  }
+}
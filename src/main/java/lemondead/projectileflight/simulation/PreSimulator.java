@@ -0,0 +1,117 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.projectileflight.level.Level;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class PreSimulator {
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "Pre-simulation");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+  private final long debounceMillis;
+  private final double maxTime;
+  private final int checkpointInterval;
+  private final long memoryBudget;
+  private final SimulationCache cache;
+  private Job job;
+
+  public PreSimulator(long debounceMillis, double maxTime, int checkpointInterval, long memoryBudget, SimulationCache cache) {
+    this.debounceMillis = debounceMillis;
+    this.maxTime = maxTime;
+    this.checkpointInterval = checkpointInterval;
+    this.memoryBudget = memoryBudget;
+    this.cache = cache;
+  }
+
+  public void schedule(Level level) {
+    long contentHash = level.contentHash();
+    if (job != null && job.contentHash == contentHash) {
+      return;
+    }
+    cancel();
+    if (cache != null && cache.contains(contentHash)) {
+      return;
+    }
+    Job job = new Job(contentHash, level.copy());
+    job.future = executor.schedule(job, debounceMillis, TimeUnit.MILLISECONDS);
+    this.job = job;
+  }
+
+  public void cancel() {
+    if (job != null) {
+      job.future.cancel(true);
+      job = null;
+    }
+  }
+
+  /**
+   * Stops the pre-simulation of the given level and hands it over, however far it got.
+   *
+   * @return a timeline over a copy of the level, or null if the level content differs from the last {@link #schedule} or the
+   * run has not started yet
+   */
+  public Timeline take(Level level) {
+    Job job = this.job;
+    this.job = null;
+    if (job == null) {
+      return null;
+    }
+    job.stopped = true;
+    if (job.contentHash != level.contentHash() || job.future.cancel(false)) {
+      job.future.cancel(true);
+      return null;
+    }
+    try {
+      return job.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (CancellationException | ExecutionException e) {
+      return null;
+    }
+  }
+
+  public void shutdown() {
+    cancel();
+    executor.shutdownNow();
+  }
+
+  private class Job implements Callable<Timeline> {
+    private final long contentHash;
+    private final Level copy;
+    private ScheduledFuture<Timeline> future;
+    private volatile boolean stopped = false;
+
+    private Job(long contentHash, Level copy) {
+      this.contentHash = contentHash;
+      this.copy = copy;
+    }
+
+    @Override
+    public Timeline call() {
+      SimulationRunner simulation = new SimulationRunner(copy);
+      Timeline timeline = new Timeline(simulation, checkpointInterval, memoryBudget);
+      long maxTicks = (long) Math.ceil(maxTime / SimulationRunner.TIME_STEP);
+      while (!stopped && simulation.getTick() < maxTicks) {
+        if (Thread.currentThread().isInterrupted()) {
+          return null;
+        }
+        long tick = simulation.getTick();
+        timeline.step(Math.min(checkpointInterval - tick % checkpointInterval, maxTicks - tick));
+        if (simulation.isSettled()) {
+          break;
+        }
+      }
+      return timeline;
+    }
+  }
+}
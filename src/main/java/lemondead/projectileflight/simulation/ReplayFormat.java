@@ -0,0 +1,97 @@
+package lemondead.projectileflight.simulation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+final class ReplayFormat {
+  static final int MAGIC = 0x50465250;
+  static final byte VERSION = 2;
+  static final int HEADER_SIZE = 32;
+  static final int LENGTH_OFFSET = 16;
+  static final int LEVEL_HASH_OFFSET = 24;
+
+  static final byte DELTA_FRAME = 0;
+  static final byte KEYFRAME = 1;
+
+  static final double POSITION_SCALE = 1024;
+  static final double ANGLE_SCALE = 4096;
+  static final double NORMAL_SCALE = 16384;
+
+  private ReplayFormat() {
+  }
+
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static long readVarint(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  static long readSigned(ByteBuffer buffer) {
+    return unzigzag(readVarint(buffer));
+  }
+
+  static final class Encoder {
+    private byte[] bytes = new byte[4096];
+    private int length = 0;
+
+    void clear() {
+      length = 0;
+    }
+
+    void put(byte b) {
+      if (length == bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      bytes[length++] = b;
+    }
+
+    void putVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        put((byte) (value & 0x7F | 0x80));
+        value >>>= 7;
+      }
+      put((byte) value);
+    }
+
+    void putSigned(long value) {
+      putVarint(zigzag(value));
+    }
+
+    void putDouble(double value) {
+      long bits = Double.doubleToRawLongBits(value);
+      for (int i = 0; i < 8; i++) {
+        put((byte) (bits >>> (i * 8)));
+      }
+    }
+
+    int length() {
+      return length;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+      buffer.put(bytes, 0, length);
+    }
+  }
+
+  static double readDouble(ByteBuffer buffer) {
+    long bits = 0;
+    for (int i = 0; i < 8; i++) {
+      bits |= (buffer.get() & 0xFFL) << (i * 8);
+    }
+    return Double.longBitsToDouble(bits);
+  }
+}
@@ -0,0 +1,151 @@
+package lemondead.projectileflight.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+public class ReplayReader {
+  private final ByteBuffer data;
+  private final float timeStep;
+  private final long levelHash;
+
+  private long tick;
+  private double worldTime;
+  private CollisionLog collisions = new CollisionLog();
+  private long[] previous = new long[0];
+  private long[] beforePrevious = new long[0];
+
+  public ReplayReader(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.limit() < ReplayFormat.HEADER_SIZE || buffer.getInt(0) != ReplayFormat.MAGIC) {
+      throw new IOException("Not a replay file: " + path);
+    }
+    if (buffer.get(4) != ReplayFormat.VERSION) {
+      throw new IOException("Unsupported replay version " + buffer.get(4) + ": " + path);
+    }
+    timeStep = buffer.getFloat(8);
+    levelHash = buffer.getLong(ReplayFormat.LEVEL_HASH_OFFSET);
+    long length = buffer.getLong(ReplayFormat.LENGTH_OFFSET);
+    if (length < 0 || ReplayFormat.HEADER_SIZE + length > buffer.limit()) {
+      throw new IOException("Truncated replay file: " + path);
+    }
+    buffer.position(ReplayFormat.HEADER_SIZE);
+    buffer.limit((int) (ReplayFormat.HEADER_SIZE + length));
+    data = buffer.slice();
+  }
+
+  public boolean hasNext() {
+    return data.hasRemaining();
+  }
+
+  public WorldSnapshot next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    double[] bodies;
+    byte type = data.get();
+    if (type == ReplayFormat.KEYFRAME) {
+      tick = ReplayFormat.readVarint(data);
+      worldTime = ReplayFormat.readDouble(data);
+      int bodyCount = (int) ReplayFormat.readVarint(data);
+      previous = new long[bodyCount * 3];
+      beforePrevious = new long[bodyCount * 3];
+      bodies = new double[bodyCount * WorldSnapshot.stride];
+      for (int i = 0; i < bodyCount; i++) {
+        int offset = i * 3;
+        previous[offset] = ReplayFormat.readSigned(data);
+        previous[offset + 1] = ReplayFormat.readSigned(data);
+        previous[offset + 2] = ReplayFormat.readSigned(data);
+        beforePrevious[offset] = previous[offset];
+        beforePrevious[offset + 1] = previous[offset + 1];
+        beforePrevious[offset + 2] = previous[offset + 2];
+        int bodyOffset = i * WorldSnapshot.stride;
+        bodies[bodyOffset] = previous[offset] / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 1] = previous[offset + 1] / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 2] = ReplayFormat.readSigned(data) / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 3] = ReplayFormat.readSigned(data) / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 4] = previous[offset + 2] / ReplayFormat.ANGLE_SCALE;
+        bodies[bodyOffset + 5] = ReplayFormat.readSigned(data) / ReplayFormat.ANGLE_SCALE;
+      }
+      int base = (int) ReplayFormat.readVarint(data);
+      if (base != collisions.size()) {
+        collisions = collisions.copy(base);
+      }
+    } else if (type == ReplayFormat.DELTA_FRAME) {
+      tick++;
+      worldTime += timeStep;
+      int bodyCount = previous.length / 3;
+      long[] residuals = new long[bodyCount * 3];
+      int changed = (int) ReplayFormat.readVarint(data);
+      int index = -1;
+      for (int i = 0; i < changed; i++) {
+        long header = ReplayFormat.readVarint(data);
+        index += (int) (header >>> 1) + 1;
+        if ((header & 1) != 0) {
+          int packed = data.get();
+          residuals[index * 3] = ReplayFormat.unzigzag(packed & 3);
+          residuals[index * 3 + 1] = ReplayFormat.unzigzag(packed >> 2 & 3);
+          residuals[index * 3 + 2] = ReplayFormat.unzigzag(packed >> 4 & 3);
+        } else {
+          residuals[index * 3] = ReplayFormat.readSigned(data);
+          residuals[index * 3 + 1] = ReplayFormat.readSigned(data);
+          residuals[index * 3 + 2] = ReplayFormat.readSigned(data);
+        }
+      }
+      bodies = new double[bodyCount * WorldSnapshot.stride];
+      for (int i = 0; i < bodyCount; i++) {
+        int offset = i * 3;
+        int bodyOffset = i * WorldSnapshot.stride;
+        for (int j = 0; j < 3; j++) {
+          long value = 2 * previous[offset + j] - beforePrevious[offset + j] + residuals[offset + j];
+          beforePrevious[offset + j] = previous[offset + j];
+          previous[offset + j] = value;
+        }
+        bodies[bodyOffset] = previous[offset] / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 1] = previous[offset + 1] / ReplayFormat.POSITION_SCALE;
+        bodies[bodyOffset + 2] = (previous[offset] - beforePrevious[offset]) / ReplayFormat.POSITION_SCALE / timeStep;
+        bodies[bodyOffset + 3] = (previous[offset + 1] - beforePrevious[offset + 1]) / ReplayFormat.POSITION_SCALE / timeStep;
+        bodies[bodyOffset + 4] = previous[offset + 2] / ReplayFormat.ANGLE_SCALE;
+        bodies[bodyOffset + 5] = (previous[offset + 2] - beforePrevious[offset + 2]) / ReplayFormat.ANGLE_SCALE / timeStep;
+      }
+    } else {
+      throw new IllegalStateException("Unknown replay frame type " + type);
+    }
+
+    int newCollisions = (int) ReplayFormat.readVarint(data);
+    for (int i = 0; i < newCollisions; i++) {
+      double x = ReplayFormat.readSigned(data) / ReplayFormat.POSITION_SCALE;
+      double y = ReplayFormat.readSigned(data) / ReplayFormat.POSITION_SCALE;
+      double normalX = ReplayFormat.readSigned(data) / ReplayFormat.NORMAL_SCALE;
+      double normalY = ReplayFormat.readSigned(data) / ReplayFormat.NORMAL_SCALE;
+      double time = worldTime - ReplayFormat.readVarint(data) * timeStep;
+      int bodyId = (int) ReplayFormat.readVarint(data) - 1;
+      collisions.add(x, y, normalX, normalY, time, bodyId);
+    }
+    return new WorldSnapshot(worldTime, tick, bodies, collisions, collisions.size(), 0, 0);
+  }
+
+  public void rewind() {
+    data.rewind();
+    tick = 0;
+    worldTime = 0;
+    collisions = new CollisionLog();
+    previous = new long[0];
+    beforePrevious = new long[0];
+  }
+
+  public float getTimeStep() {
+    return timeStep;
+  }
+
+  public long getLevelHash() {
+    return levelHash;
+  }
+}
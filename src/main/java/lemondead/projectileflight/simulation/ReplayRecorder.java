@@ -0,0 +1,209 @@
+package lemondead.projectileflight.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class ReplayRecorder implements Closeable {
+  private static final int regionSize = 1 << 20;
+  private static final int queueCapacity = 4096;
+  private static final WorldSnapshot END = new WorldSnapshot(0, -1, new double[0], new CollisionLog(), 0, 0, 0);
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final BlockingQueue<WorldSnapshot> queue = new ArrayBlockingQueue<>(queueCapacity);
+  private final Thread writer;
+  private final ReplayFormat.Encoder encoder = new ReplayFormat.Encoder();
+
+  private MappedByteBuffer region;
+  private long regionStart = 0;
+  private volatile long bytesWritten = 0;
+  private volatile int droppedFrames = 0;
+  private volatile IOException failure;
+
+  private long lastTick = -1;
+  private CollisionLog lastLog;
+  private int recordedCollisions = 0;
+  private long[] previous = new long[0];
+  private long[] beforePrevious = new long[0];
+  private long[] residuals = new long[0];
+
+  /**
+   * @param levelHash content hash of the recorded level, which playback matches against the open one
+   */
+  public ReplayRecorder(Path path, long levelHash) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                               StandardOpenOption.WRITE);
+    header = channel.map(FileChannel.MapMode.READ_WRITE, 0, ReplayFormat.HEADER_SIZE);
+    header.putInt(0, ReplayFormat.MAGIC);
+    header.put(4, ReplayFormat.VERSION);
+    header.putFloat(8, SimulationRunner.TIME_STEP);
+    header.putLong(ReplayFormat.LENGTH_OFFSET, 0);
+    header.putLong(ReplayFormat.LEVEL_HASH_OFFSET, levelHash);
+    regionStart = ReplayFormat.HEADER_SIZE;
+    region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+
+    writer = new Thread(this::writeLoop, "Replay writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  public boolean record(WorldSnapshot snapshot) {
+    if (!queue.offer(snapshot)) {
+      droppedFrames++;
+      return false;
+    }
+    return true;
+  }
+
+  private void writeLoop() {
+    try {
+      while (true) {
+        WorldSnapshot snapshot = queue.take();
+        if (snapshot == END) {
+          break;
+        }
+        encoder.clear();
+        encode(snapshot);
+        write();
+      }
+    } catch (IOException e) {
+      failure = e;
+    } catch (InterruptedException ignored) {
+    }
+  }
+
+  private void encode(WorldSnapshot snapshot) {
+    int bodyCount = snapshot.getBodyCount();
+    CollisionLog log = snapshot.getCollisions();
+    boolean keyframe = snapshot.getTick() != lastTick + 1 || log != lastLog || bodyCount * 3 != previous.length;
+    int collisionBase = recordedCollisions;
+    if (keyframe) {
+      encoder.put(ReplayFormat.KEYFRAME);
+      encoder.putVarint(snapshot.getTick());
+      encoder.putDouble(snapshot.getWorldTime());
+      encoder.putVarint(bodyCount);
+      if (previous.length != bodyCount * 3) {
+        previous = new long[bodyCount * 3];
+        beforePrevious = new long[bodyCount * 3];
+        residuals = new long[bodyCount * 3];
+      }
+      for (int i = 0; i < bodyCount; i++) {
+        long x = Math.round(snapshot.getX(i) * ReplayFormat.POSITION_SCALE);
+        long y = Math.round(snapshot.getY(i) * ReplayFormat.POSITION_SCALE);
+        long angle = Math.round(snapshot.getAngle(i) * ReplayFormat.ANGLE_SCALE);
+        encoder.putSigned(x);
+        encoder.putSigned(y);
+        encoder.putSigned(angle);
+        encoder.putSigned(Math.round(snapshot.getVelocityX(i) * ReplayFormat.POSITION_SCALE));
+        encoder.putSigned(Math.round(snapshot.getVelocityY(i) * ReplayFormat.POSITION_SCALE));
+        encoder.putSigned(Math.round(snapshot.getAngularVelocity(i) * ReplayFormat.ANGLE_SCALE));
+        set(previous, i, x, y, angle);
+        set(beforePrevious, i, x, y, angle);
+      }
+      collisionBase = Math.min(recordedCollisions, snapshot.getCollisionCount());
+      encoder.putVarint(collisionBase);
+    } else {
+      encoder.put(ReplayFormat.DELTA_FRAME);
+      int changed = 0;
+      for (int i = 0; i < bodyCount; i++) {
+        int offset = i * 3;
+        long x = Math.round(snapshot.getX(i) * ReplayFormat.POSITION_SCALE);
+        long y = Math.round(snapshot.getY(i) * ReplayFormat.POSITION_SCALE);
+        long angle = Math.round(snapshot.getAngle(i) * ReplayFormat.ANGLE_SCALE);
+        residuals[offset] = x - (2 * previous[offset] - beforePrevious[offset]);
+        residuals[offset + 1] = y - (2 * previous[offset + 1] - beforePrevious[offset + 1]);
+        residuals[offset + 2] = angle - (2 * previous[offset + 2] - beforePrevious[offset + 2]);
+        set(beforePrevious, i, previous[offset], previous[offset + 1], previous[offset + 2]);
+        set(previous, i, x, y, angle);
+        if (residuals[offset] != 0 || residuals[offset + 1] != 0 || residuals[offset + 2] != 0) {
+          changed++;
+        }
+      }
+      encoder.putVarint(changed);
+      int lastChanged = -1;
+      for (int i = 0; i < bodyCount; i++) {
+        int offset = i * 3;
+        if (residuals[offset] != 0 || residuals[offset + 1] != 0 || residuals[offset + 2] != 0) {
+          long zigzagX = ReplayFormat.zigzag(residuals[offset]);
+          long zigzagY = ReplayFormat.zigzag(residuals[offset + 1]);
+          long zigzagAngle = ReplayFormat.zigzag(residuals[offset + 2]);
+          boolean small = zigzagX < 4 && zigzagY < 4 && zigzagAngle < 4;
+          encoder.putVarint((long) (i - lastChanged - 1) << 1 | (small ? 1 : 0));
+          if (small) {
+            encoder.put((byte) (zigzagX | zigzagY << 2 | zigzagAngle << 4));
+          } else {
+            encoder.putVarint(zigzagX);
+            encoder.putVarint(zigzagY);
+            encoder.putVarint(zigzagAngle);
+          }
+          lastChanged = i;
+        }
+      }
+    }
+
+    int count = snapshot.getCollisionCount();
+    encoder.putVarint(count - collisionBase);
+    for (int i = collisionBase; i < count; i++) {
+      encoder.putSigned(Math.round(log.getX(i) * ReplayFormat.POSITION_SCALE));
+      encoder.putSigned(Math.round(log.getY(i) * ReplayFormat.POSITION_SCALE));
+      encoder.putSigned(Math.round(log.getNormalX(i) * ReplayFormat.NORMAL_SCALE));
+      encoder.putSigned(Math.round(log.getNormalY(i) * ReplayFormat.NORMAL_SCALE));
+      encoder.putVarint(Math.max(0, Math.round((snapshot.getWorldTime() - log.getTime(i)) / SimulationRunner.TIME_STEP)));
+      encoder.putVarint(log.getBodyId(i) + 1);
+    }
+    recordedCollisions = count;
+    lastLog = log;
+    lastTick = snapshot.getTick();
+  }
+
+  private static void set(long[] values, int i, long x, long y, long angle) {
+    values[i * 3] = x;
+    values[i * 3 + 1] = y;
+    values[i * 3 + 2] = angle;
+  }
+
+  private void write() throws IOException {
+    int length = encoder.length();
+    if (region.remaining() < length) {
+      regionStart += region.position();
+      region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(regionSize, length));
+    }
+    encoder.writeTo(region);
+    bytesWritten += length;
+    header.putLong(ReplayFormat.LENGTH_OFFSET, bytesWritten);
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  public int getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      queue.put(END);
+      writer.join();
+    } catch (InterruptedException e) {
+      writer.interrupt();
+      Thread.currentThread().interrupt();
+    }
+    try {
+      channel.truncate(ReplayFormat.HEADER_SIZE + bytesWritten);
+    } catch (IOException ignored) {
+      //Mapped files can't be truncated on some platforms; the header stores the length anyway
+    }
+    channel.close();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package lemondead.projectileflight.simulation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class SimulationCache {
+  private final long memoryBudget;
+  private final LinkedHashMap<Long, SimulationRecord> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  public SimulationCache(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  public synchronized SimulationRecord get(long contentHash) {
+    return entries.get(contentHash);
+  }
+
+  public synchronized boolean contains(long contentHash) {
+    return entries.containsKey(contentHash);
+  }
+
+  /**
+   * Keeps whichever of the record and the one already cached for the content got further.
+   */
+  public synchronized void put(long contentHash, SimulationRecord record) {
+    SimulationRecord cached = entries.get(contentHash);
+    if (cached == null || cached.getFrontierTick() < record.getFrontierTick()) {
+      entries.put(contentHash, record);
+    }
+    trim();
+  }
+
+  public synchronized void trim() {
+    long size = 0;
+    for (SimulationRecord record : entries.values()) {
+      size += record.getSizeInBytes();
+    }
+    Iterator<SimulationRecord> iterator = entries.values().iterator();
+    while (size > memoryBudget && entries.size() > 1) {
+      size -= iterator.next().getSizeInBytes();
+      iterator.remove();
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,67 @@
+package lemondead.projectileflight.simulation;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * What a {@link Timeline} has simulated up to some tick, without the world it was simulated in. Nothing changes it once
+ * taken, so any number of timelines can start from it.
+ */
+public final class SimulationRecord {
+  /**
+   * Tree map entry with its boxed key
+   */
+  private static final long bytesPerCheckpointEntry = 56;
+
+  private final int checkpointInterval;
+  private final long memoryBudget;
+  private final NavigableMap<Long, Checkpoint> checkpoints;
+  private final long retainedInterval;
+  private final long checkpointMemory;
+  private final long frontierTick;
+  private final CollisionLog collisions;
+
+  SimulationRecord(int checkpointInterval, long memoryBudget, TreeMap<Long, Checkpoint> checkpoints, long retainedInterval,
+                   long checkpointMemory, long frontierTick, CollisionLog collisions) {
+    this.checkpointInterval = checkpointInterval;
+    this.memoryBudget = memoryBudget;
+    this.checkpoints = Collections.unmodifiableNavigableMap(checkpoints);
+    this.retainedInterval = retainedInterval;
+    this.checkpointMemory = checkpointMemory;
+    this.frontierTick = frontierTick;
+    this.collisions = collisions;
+  }
+
+  int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  NavigableMap<Long, Checkpoint> getCheckpoints() {
+    return checkpoints;
+  }
+
+  long getRetainedInterval() {
+    return retainedInterval;
+  }
+
+  long getCheckpointMemory() {
+    return checkpointMemory;
+  }
+
+  public long getFrontierTick() {
+    return frontierTick;
+  }
+
+  CollisionLog getCollisions() {
+    return collisions;
+  }
+
+  public long getSizeInBytes() {
+    return checkpointMemory + checkpoints.size() * bytesPerCheckpointEntry + collisions.getSizeInBytes();
+  }
+}
@@ -0,0 +1,125 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.projectileflight.level.Level;
+
+import java.util.function.Predicate;
+
+public class SimulationRunner {
+  public static final float TIME_STEP = 1 / 120f;
+
+  private final Level level;
+  private PhysicsBackend backend;
+  private PhysicsQuality quality;
+  private CollisionLog collisionLog = new CollisionLog();
+  private double worldTime = 0;
+  private long tick = 0;
+
+  public SimulationRunner(Level level) {
+    this.level = level;
+    quality = level.getPhysicsConfig().getQuality();
+    backend = PhysicsBackend.create(level.getPhysicsConfig(), collisionLog, () -> worldTime);
+    level.collectBodies(backend);
+    backend.setQuality(quality);
+  }
+
+  public void step() {
+    backend.launch(tick);
+    worldTime += TIME_STEP;
+    tick++;
+    for (int i = 0; i < quality.getSubSteps(); i++) {
+      backend.step(quality.getSubStep());
+    }
+  }
+
+  /**
+   * Switches the profile without disturbing the run. Checkpoints taken before keep the state the old profile produced.
+   */
+  public void setQuality(PhysicsQuality quality) {
+    this.quality = quality;
+    backend.setQuality(quality);
+  }
+
+  public PhysicsQuality getQuality() {
+    return quality;
+  }
+
+  public void step(long ticks) {
+    for (long i = 0; i < ticks; i++) {
+      step();
+    }
+  }
+
+  public void runFor(double seconds) {
+    double endTime = worldTime + seconds;
+    while (worldTime < endTime) {
+      step();
+    }
+  }
+
+  public boolean runUntil(Predicate<SimulationRunner> condition, long maxTicks) {
+    for (long i = 0; i < maxTicks; i++) {
+      if (condition.test(this)) {
+        return true;
+      }
+      step();
+    }
+    return condition.test(this);
+  }
+
+  public boolean isSettled() {
+    return backend.isSettled();
+  }
+
+  public Checkpoint checkpoint() {
+    return new Checkpoint(tick, worldTime, collisionLog.size(), backend.saveBodies(), backend.saveContacts());
+  }
+
+  /**
+   * Puts the world back into the checkpoint state in place, which holds everything the backend carries from one step to
+   * the next, so stepping on reproduces the run the checkpoint was taken from.
+   *
+   * @param history log holding at least {@code checkpoint.getCollisionCount()} collisions of this run
+   */
+  public void restore(Checkpoint checkpoint, CollisionLog history) {
+    boolean sameLog = history == collisionLog && history.size() == checkpoint.getCollisionCount();
+    if (!sameLog) {
+      collisionLog = history.copy(checkpoint.getCollisionCount());
+      backend.setCollisions(collisionLog);
+    }
+    tick = checkpoint.getTick();
+    worldTime = checkpoint.getWorldTime();
+    backend.load(checkpoint.getBodies(), checkpoint.getContacts());
+    backend.launch(tick);
+  }
+
+  public WorldSnapshot snapshot(long timestamp, double pendingTime) {
+    return snapshot(timestamp, pendingTime, null);
+  }
+
+  /**
+   * @param previous snapshot of the previous tick, which renderers interpolate from
+   */
+  public WorldSnapshot snapshot(long timestamp, double pendingTime, WorldSnapshot previous) {
+    return WorldSnapshot.capture(backend, worldTime, tick, collisionLog, timestamp, pendingTime, previous);
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+  public PhysicsBackend getBackend() {
+    return backend;
+  }
+
+  public double getWorldTime() {
+    return worldTime;
+  }
+
+  public long getTick() {
+    return tick;
+  }
+
+  public CollisionLog getCollisionLog() {
+    return collisionLog;
+  }
+}
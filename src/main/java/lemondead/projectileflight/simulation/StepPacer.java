@@ -0,0 +1,66 @@
+package lemondead.projectileflight.simulation;
+
+public class StepPacer {
+  private final double timeStep;
+  private final long wakeupPeriod;
+  private final int maxStepsPerWakeup;
+  private long lastWakeup = -1;
+  private volatile double accumulator = 0;
+  private volatile long droppedTicks = 0;
+  private volatile long lateWakeups = 0;
+
+  public StepPacer(double timeStep, long wakeupPeriod, int maxStepsPerWakeup) {
+    this.timeStep = timeStep;
+    this.wakeupPeriod = wakeupPeriod;
+    this.maxStepsPerWakeup = maxStepsPerWakeup;
+  }
+
+  public static StepPacer forSpeed(double timeStep, double speed, double maxWakeupRate) {
+    long tickPeriod = (long) (1E+9 * timeStep / speed);
+    long wakeupPeriod = Math.max(tickPeriod, (long) (1E+9 / maxWakeupRate));
+    int stepsPerWakeup = (int) Math.ceil(wakeupPeriod / (double) tickPeriod);
+    return new StepPacer(timeStep, wakeupPeriod, Math.max(4, stepsPerWakeup * 4));
+  }
+
+  public long getWakeupPeriod() {
+    return wakeupPeriod;
+  }
+
+  public void reset(long now) {
+    lastWakeup = now;
+    accumulator = 0;
+  }
+
+  public int advance(long now, double speed) {
+    if (lastWakeup == -1) {
+      lastWakeup = now;
+      return 0;
+    }
+    long elapsed = now - lastWakeup;
+    lastWakeup = now;
+    if (elapsed > wakeupPeriod * 2) {
+      lateWakeups++;
+    }
+    double accumulator = this.accumulator + elapsed * 1E-9 * speed;
+    int steps = (int) (accumulator / timeStep);
+    if (steps > maxStepsPerWakeup) {
+      droppedTicks += steps - maxStepsPerWakeup;
+      steps = maxStepsPerWakeup;
+      accumulator = steps * timeStep;
+    }
+    this.accumulator = accumulator - steps * timeStep;
+    return steps;
+  }
+
+  public double getAccumulator() {
+    return accumulator;
+  }
+
+  public long getDroppedTicks() {
+    return droppedTicks;
+  }
+
+  public long getLateWakeups() {
+    return lateWakeups;
+  }
+}
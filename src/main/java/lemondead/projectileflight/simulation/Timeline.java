@@ -0,0 +1,157 @@
+package lemondead.projectileflight.simulation;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Timeline {
+  private final SimulationRunner simulation;
+  private final int checkpointInterval;
+  private final long memoryBudget;
+  private final TreeMap<Long, Checkpoint> checkpoints = new TreeMap<>();
+  private long retainedInterval;
+  private long memoryUsed = 0;
+  private long frontierTick;
+  private CollisionLog frontierLog;
+
+  public Timeline(SimulationRunner simulation, int checkpointInterval, long memoryBudget) {
+    if (checkpointInterval <= 0) {
+      throw new IllegalArgumentException("Checkpoint interval must be positive.");
+    }
+    this.simulation = simulation;
+    this.checkpointInterval = checkpointInterval;
+    this.memoryBudget = memoryBudget;
+    retainedInterval = checkpointInterval;
+    frontierTick = simulation.getTick();
+    frontierLog = simulation.getCollisionLog();
+    checkpoint();
+  }
+
+  /**
+   * Creates a timeline for another simulation of a level with the same content as the record, which starts at the first
+   * checkpoint.
+   */
+  public Timeline(SimulationRecord record, SimulationRunner simulation) {
+    this.simulation = simulation;
+    checkpointInterval = record.getCheckpointInterval();
+    memoryBudget = record.getMemoryBudget();
+    checkpoints.putAll(record.getCheckpoints());
+    retainedInterval = record.getRetainedInterval();
+    memoryUsed = record.getCheckpointMemory();
+    frontierTick = record.getFrontierTick();
+    frontierLog = record.getCollisions();
+    simulation.restore(checkpoints.firstEntry().getValue(), frontierLog);
+  }
+
+  private Timeline(Timeline source) {
+    simulation = source.simulation;
+    checkpointInterval = source.checkpointInterval;
+    memoryBudget = source.memoryBudget;
+    checkpoints.putAll(source.checkpoints.headMap(simulation.getTick(), true));
+    retainedInterval = source.retainedInterval;
+    for (Checkpoint checkpoint : checkpoints.values()) {
+      memoryUsed += checkpoint.getSizeInBytes();
+    }
+    frontierTick = simulation.getTick();
+    frontierLog = simulation.getCollisionLog();
+  }
+
+  /**
+   * Creates a timeline that goes on from the current tick after the way the simulation steps has changed. Checkpoints and
+   * collisions past the current tick are left out, this timeline is kept as it was.
+   */
+  public Timeline branch() {
+    return new Timeline(this);
+  }
+
+  /**
+   * Creates a timeline for another simulation of a level with the same content. Checkpoints and collisions recorded so far are
+   * shared, and the new timeline starts at the first checkpoint.
+   */
+  public Timeline fork(SimulationRunner simulation) {
+    return new Timeline(record(), simulation);
+  }
+
+  /**
+   * @return checkpoints and collisions up to the frontier, which later steps of this timeline leave as they are
+   */
+  public SimulationRecord record() {
+    return new SimulationRecord(checkpointInterval, memoryBudget, new TreeMap<>(checkpoints), retainedInterval, memoryUsed,
+                                frontierTick, frontierLog.copy(frontierLog.size()));
+  }
+
+  public void step() {
+    simulation.step();
+    onStep();
+  }
+
+  public void step(long ticks) {
+    for (long i = 0; i < ticks; i++) {
+      step();
+    }
+  }
+
+  private void onStep() {
+    if (simulation.getTick() % checkpointInterval == 0) {
+      checkpoint();
+    }
+    if (simulation.getTick() > frontierTick) {
+      frontierTick = simulation.getTick();
+      frontierLog = simulation.getCollisionLog();
+    }
+  }
+
+  public void seek(long tick) {
+    tick = Math.max(tick, checkpoints.firstKey());
+    Map.Entry<Long, Checkpoint> entry = checkpoints.floorEntry(tick);
+    if (tick < simulation.getTick() || entry.getKey() > simulation.getTick()) {
+      simulation.restore(entry.getValue(), frontierLog);
+    }
+    if (simulation.getTick() < tick) {
+      step(tick - simulation.getTick());
+    }
+  }
+
+  public void seekTime(double worldTime) {
+    seek((long) Math.ceil(worldTime / SimulationRunner.TIME_STEP - 1E-6));
+  }
+
+  private void checkpoint() {
+    Checkpoint checkpoint = simulation.checkpoint();
+    long tick = checkpoint.getTick();
+    if (tick % retainedInterval != 0 || checkpoints.containsKey(tick)) {
+      return;
+    }
+    checkpoints.put(tick, checkpoint);
+    memoryUsed += checkpoint.getSizeInBytes();
+    while (memoryUsed > memoryBudget && checkpoints.size() > 1) {
+      retainedInterval *= 2;
+      checkpoints.values().removeIf(c -> {
+        if (c.getTick() % retainedInterval != 0) {
+          memoryUsed -= c.getSizeInBytes();
+          return true;
+        }
+        return false;
+      });
+    }
+  }
+
+  public SimulationRunner getSimulation() {
+    return simulation;
+  }
+
+  public long getFrontierTick() {
+    return frontierTick;
+  }
+
+  public int getCheckpointCount() {
+    return checkpoints.size();
+  }
+
+  public long getRetainedInterval() {
+    return retainedInterval;
+  }
+
+  public long getMemoryUsed() {
+    return memoryUsed;
+  }
+}
@@ -0,0 +1,134 @@
+package lemondead.projectileflight.simulation;
+
+public final class WorldSnapshot {
+  public static final WorldSnapshot EMPTY = new WorldSnapshot(0, 0, new double[0], new CollisionLog(), 0, 0, 0);
+
+  static final int stride = 6;
+
+  private final double worldTime;
+  private final long tick;
+  private final double[] bodies;
+  private final double[] previousBodies;
+  private final CollisionLog collisions;
+  private final int collisionCount;
+  private final long timestamp;
+  private final double pendingTime;
+
+  WorldSnapshot(double worldTime, long tick, double[] bodies, CollisionLog collisions, int collisionCount, long timestamp,
+                double pendingTime) {
+    this(worldTime, tick, bodies, bodies, collisions, collisionCount, timestamp, pendingTime);
+  }
+
+  private WorldSnapshot(double worldTime, long tick, double[] bodies, double[] previousBodies, CollisionLog collisions,
+                        int collisionCount, long timestamp, double pendingTime) {
+    this.worldTime = worldTime;
+    this.tick = tick;
+    this.bodies = bodies;
+    this.previousBodies = previousBodies;
+    this.collisions = collisions;
+    this.collisionCount = collisionCount;
+    this.timestamp = timestamp;
+    this.pendingTime = pendingTime;
+  }
+
+  /**
+   * @param previous snapshot of the tick before, whose bodies are kept for interpolation. Ignored if it is of any other tick.
+   */
+  static WorldSnapshot capture(PhysicsBackend backend, double worldTime, long tick, CollisionLog collisions, long timestamp,
+                               double pendingTime, WorldSnapshot previous) {
+    double[] bodies = new double[backend.getBodyCount() * stride];
+    backend.writeBodies(bodies);
+    return new WorldSnapshot(worldTime, tick, bodies, previousBodies(bodies, tick, previous), collisions, collisions.size(),
+                             timestamp, pendingTime);
+  }
+
+  private static double[] previousBodies(double[] bodies, long tick, WorldSnapshot previous) {
+    if (previous != null && previous.tick == tick - 1 && previous.bodies.length == bodies.length) {
+      return previous.bodies;
+    }
+    return bodies;
+  }
+
+  public WorldSnapshot withTimestamp(long timestamp, double pendingTime) {
+    return new WorldSnapshot(worldTime, tick, bodies, previousBodies, collisions, collisionCount, timestamp, pendingTime);
+  }
+
+  /**
+   * @param previous frame of the tick before, whose bodies are kept for interpolation. Ignored if it is of any other tick.
+   */
+  public WorldSnapshot withTimestamp(long timestamp, double pendingTime, WorldSnapshot previous) {
+    return new WorldSnapshot(worldTime, tick, bodies, previousBodies(bodies, tick, previous), collisions, collisionCount,
+                             timestamp, pendingTime);
+  }
+
+  public double getWorldTime() {
+    return worldTime;
+  }
+
+  public long getTick() {
+    return tick;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public double getPendingTime() {
+    return pendingTime;
+  }
+
+  public int getBodyCount() {
+    return bodies.length / stride;
+  }
+
+  public boolean hasBody(int index) {
+    return index >= 0 && index < getBodyCount();
+  }
+
+  public double getX(int index) {
+    return bodies[index * stride];
+  }
+
+  public double getY(int index) {
+    return bodies[index * stride + 1];
+  }
+
+  public double getVelocityX(int index) {
+    return bodies[index * stride + 2];
+  }
+
+  public double getVelocityY(int index) {
+    return bodies[index * stride + 3];
+  }
+
+  public double getAngle(int index) {
+    return bodies[index * stride + 4];
+  }
+
+  public double getAngularVelocity(int index) {
+    return bodies[index * stride + 5];
+  }
+
+  /**
+   * @return x a tick earlier, or the current x if the snapshot before wasn't of the previous tick
+   */
+  public double getPreviousX(int index) {
+    return previousBodies[index * stride];
+  }
+
+  public double getPreviousY(int index) {
+    return previousBodies[index * stride + 1];
+  }
+
+  public double getPreviousAngle(int index) {
+    return previousBodies[index * stride + 4];
+  }
+
+  public CollisionLog getCollisions() {
+    return collisions;
+  }
+
+  public int getCollisionCount() {
+    return collisionCount;
+  }
+}
@@ -0,0 +1,21 @@
+package lemondead.projectileflight.utils;
+
+public final class ContentHash {
+  public static final long SEED = 0xCBF29CE484222325L;
+
+  private ContentHash() {
+  }
+
+  public static long mix(long hash, long value) {
+    hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 32);
+  }
+
+  public static long mix(long hash, double value) {
+    return mix(hash, Double.doubleToLongBits(value));
+  }
+
+  public static long mix(long hash, boolean value) {
+    return mix(hash, value ? 1L : 0L);
+  }
+}
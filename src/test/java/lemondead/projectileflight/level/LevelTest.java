@@ -0,0 +1,74 @@
+package lemondead.projectileflight.level;
+
+import lemondead.game.engine.util.BoundingRect;
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.level.SpatialIndexTest.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelTest {
+  private static final BoundingRect box = new BoundingRect(-1, 0, 1, 2);
+
+  private static boolean isFree(Level level, Vec2 pos, BoundingRect rect) {
+    BoundingRect translated = rect.translate(pos);
+    return level.intersectsObject(translated, o -> true).count() == 0;
+  }
+
+  @Test
+  void freeStartIsKept() {
+    Level level = new Level();
+    level.addObject(new Block(10, 0, box), false);
+    assertEquals(Optional.of(Vec2.of(0, 1)), level.getPosition(Vec2.of(0, 1), box, o -> true));
+  }
+
+  @Test
+  void startInTheFloorIsLiftedOntoIt() {
+    Level level = new Level();
+    Optional<Vec2> position = level.getPosition(Vec2.of(3, -5), box, o -> true);
+    assertTrue(position.isPresent());
+    assertEquals(3, position.get().x());
+    assertEquals(0, position.get().y(), 1E-9);
+  }
+
+  @Test
+  void overlapIsResolvedToTheNearestFreeSide() {
+    Level level = new Level();
+    level.addObject(new Block(0, 1, new BoundingRect(-1, 0, 10, 4)), false);
+    Optional<Vec2> position = level.getPosition(Vec2.of(0, 2), box, o -> true);
+    assertTrue(position.isPresent());
+    assertEquals(Vec2.of(-2.0, 2.0), position.get());
+    assertTrue(isFree(level, position.get(), box));
+  }
+
+  @Test
+  void filterIgnoresObjects() {
+    Level level = new Level();
+    Block block = new Block(0, 1, new BoundingRect(-1, 0, 10, 4));
+    level.addObject(block, false);
+    assertEquals(Optional.of(Vec2.of(0, 2)), level.getPosition(Vec2.of(0, 2), box, o -> o != block));
+  }
+
+  @Test
+  void clutterStillGivesAFreePositionNoFartherThanProbing() {
+    Random random = new Random(11);
+    Level level = new Level();
+    for (int i = 0; i < 300; i++) {
+      double width = 1 + random.nextDouble() * 6;
+      level.addObject(new Block(random.nextDouble() * 80 - 40, random.nextDouble() * 30,
+                                new BoundingRect(-width / 2, 0, width / 2, 0.5 + random.nextDouble() * 3)), false);
+    }
+    for (int i = 0; i < 50; i++) {
+      Vec2 start = Vec2.of(random.nextDouble() * 60 - 30, random.nextDouble() * 25 + 0.5);
+      Optional<Vec2> position = level.getPosition(start, box, o -> true);
+      assertTrue(position.isPresent());
+      assertTrue(isFree(level, position.get(), box), "position " + position.get() + " overlaps something");
+      if (isFree(level, start, box)) {
+        assertEquals(start, position.get());
+      }
+    }
+  }
+}
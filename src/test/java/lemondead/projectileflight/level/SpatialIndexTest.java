@@ -0,0 +1,117 @@
+package lemondead.projectileflight.level;
+
+import lemondead.game.engine.util.BoundingRect;
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.simulation.PhysicsBackend;
+import lemondead.projectileflight.simulation.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+  static final class Block extends LevelObject {
+    private final BoundingRect rect;
+
+    Block(double x, double y, BoundingRect rect) {
+      this.rect = rect;
+      pos = Vec2.of(x, y);
+    }
+
+    @Override
+    public void initBodies(PhysicsBackend backend) {
+      backend.addBox(pos.x(), pos.y(), 0, (float) rect.width() / 2, (float) rect.height() / 2, (float) rect.center().x(),
+                     (float) rect.center().y(), 1, 0);
+    }
+
+    @Override
+    public LevelObject copy() {
+      return new Block(pos.x(), pos.y(), rect);
+    }
+
+    @Override
+    public long contentHash(long hash) {
+      return hash;
+    }
+
+    @Override
+    protected void reset() {
+    }
+
+    @Override
+    public ObjectRenderer getRenderer(WorldSnapshot snapshot) {
+      return null;
+    }
+
+    @Override
+    protected BoundingRect getBoundingRect() {
+      return rect;
+    }
+  }
+
+  private static List<LevelObject> bruteForce(List<LevelObject> objects, BoundingRect rect) {
+    return objects.stream().filter(o -> o.getBoundingRect().translate(o.getPos()).intersects(rect)).collect(Collectors.toList());
+  }
+
+  @Test
+  void queriesMatchBruteForceInInsertionOrder() {
+    Random random = new Random(7);
+    SpatialIndex index = new SpatialIndex();
+    List<LevelObject> objects = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      double size = i % 50 == 0 ? 400 : 0.5 + random.nextDouble() * 12;
+      Block block = new Block(random.nextDouble() * 300 - 150, random.nextDouble() * 100,
+                              new BoundingRect(-size / 2, 0, size / 2, size / 3));
+      objects.add(block);
+      index.add(block);
+    }
+    for (int i = 0; i < 200; i++) {
+      double x = random.nextDouble() * 400 - 200;
+      double y = random.nextDouble() * 120 - 10;
+      double size = random.nextDouble() * (i % 10 == 0 ? 300 : 20);
+      BoundingRect rect = new BoundingRect(x, y, x + size, y + size / 2);
+      assertEquals(bruteForce(objects, rect), index.query(rect, false, false));
+    }
+  }
+
+  @Test
+  void movedAndRemovedObjectsAreFoundWhereTheyAre() {
+    SpatialIndex index = new SpatialIndex();
+    List<LevelObject> objects = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Block block = new Block(i * 10, 0, new BoundingRect(-1, 0, 1, 2));
+      objects.add(block);
+      index.add(block);
+    }
+    LevelObject moved = objects.get(3);
+    moved.pos = Vec2.of(500, 500);
+    index.update(moved);
+    LevelObject removed = objects.remove(5);
+    index.remove(removed);
+    index.remove(removed);
+
+    BoundingRect everything = new BoundingRect(-1000, -1000, 1000, 1000);
+    assertEquals(objects, index.query(everything, false, false));
+    assertEquals(0, index.query(new BoundingRect(29, 0, 31, 1), false, false).size());
+    assertEquals(0, index.query(new BoundingRect(49, 0, 51, 1), false, false).size());
+    assertEquals(1, index.query(new BoundingRect(499, 500, 501, 501), false, false).size());
+    assertEquals(new BoundingRect(499, 500, 501, 502), index.getBounds(moved));
+  }
+
+  @Test
+  void levelKeepsTheIndexUpToDate() {
+    Level level = new Level();
+    Block block = new Block(0, 0, new BoundingRect(-1, 0, 1, 2));
+    level.addObject(block, false);
+    block.setPos(Vec2.of(40, 40));
+    BoundingRect old = new BoundingRect(-0.5, 0.5, 0.5, 1);
+    assertEquals(0, level.intersectsObject(old, o -> true).filter(r -> r.maxY > 0).count());
+    assertEquals(1, level.intersectsObject(new BoundingRect(39.5, 40.5, 40.5, 41), o -> true).filter(r -> r.maxY > 0).count());
+    level.removeObject(block);
+    assertEquals(0, level.intersectsObject(new BoundingRect(39.5, 40.5, 40.5, 41), o -> true).filter(r -> r.maxY > 0).count());
+  }
+}
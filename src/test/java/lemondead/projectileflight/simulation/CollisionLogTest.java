@@ -0,0 +1,111 @@
+package lemondead.projectileflight.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollisionLogTest {
+  private static CollisionLog filled(int count) {
+    CollisionLog log = new CollisionLog();
+    for (int i = 0; i < count; i++) {
+      log.add(i, -i, i * 0.5, -i * 0.5, i / 120.0, i % 7);
+    }
+    return log;
+  }
+
+  @Test
+  void entriesSurviveGrowingAcrossChunks() {
+    int count = 5 * 1024 + 3;
+    CollisionLog log = filled(count);
+    assertEquals(count, log.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, log.getX(i));
+      assertEquals(-i, log.getY(i));
+      assertEquals(i * 0.5, log.getNormalX(i));
+      assertEquals(-i * 0.5, log.getNormalY(i));
+      assertEquals(i / 120.0, log.getTime(i));
+      assertEquals(i % 7, log.getBodyId(i));
+    }
+  }
+
+  @Test
+  void indicesOutsideTheLogAreRejected() {
+    CollisionLog log = filled(3);
+    assertThrows(IndexOutOfBoundsException.class, () -> log.getX(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> log.getBodyId(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> log.copy(4));
+  }
+
+  @Test
+  void copyIsAPrefixThatGrowsOnItsOwn() {
+    CollisionLog log = filled(2048 + 10);
+    CollisionLog copy = log.copy(1500);
+    assertEquals(1500, copy.size());
+    for (int i = 0; i < copy.size(); i++) {
+      assertEquals(log.getX(i), copy.getX(i));
+      assertEquals(log.getBodyId(i), copy.getBodyId(i));
+    }
+    copy.add(-1, -1, 0, 1, 99, 42);
+    log.add(-2, -2, 0, 1, 98, 43);
+    assertEquals(-1, copy.getX(1500));
+    assertEquals(42, copy.getBodyId(1500));
+    assertEquals(1500.0, log.getX(1500));
+    assertEquals(2048 + 11, log.size());
+  }
+
+  @Test
+  void clearKeepsTheLogUsable() {
+    CollisionLog log = filled(1100);
+    log.clear();
+    assertEquals(0, log.size());
+    assertThrows(IndexOutOfBoundsException.class, () -> log.getX(0));
+    log.add(7, 8, 0, 1, 1, 3);
+    assertEquals(1, log.size());
+    assertEquals(7, log.getX(0));
+  }
+
+  @Test
+  void cursorSeesEntriesAddedLater() {
+    CollisionLog log = filled(2);
+    CollisionLog.Cursor cursor = log.cursor();
+    assertEquals(0, cursor.next());
+    assertEquals(1, cursor.next());
+    assertFalse(cursor.hasNext());
+    assertThrows(IllegalStateException.class, cursor::next);
+    log.add(0, 0, 0, 1, 0, 0);
+    assertTrue(cursor.hasNext());
+    assertEquals(2, cursor.next());
+    assertEquals(3, cursor.getPosition());
+    assertSame(log, cursor.getLog());
+  }
+
+  @Test
+  void cursorStartsAtPosition() {
+    CollisionLog log = filled(5);
+    CollisionLog.Cursor cursor = log.cursor(3);
+    assertEquals(3, cursor.next());
+    assertEquals(4, cursor.next());
+    assertFalse(cursor.hasNext());
+  }
+
+  @Test
+  void readerThreadSeesCompleteEntries() throws InterruptedException {
+    CollisionLog log = new CollisionLog();
+    int count = 20_000;
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < count; i++) {
+        log.add(i, i, 0, 1, i, i);
+      }
+    });
+    writer.start();
+    CollisionLog.Cursor cursor = log.cursor();
+    while (cursor.getPosition() < count) {
+      while (cursor.hasNext()) {
+        int i = cursor.next();
+        assertEquals(i, log.getX(i));
+        assertEquals(i, log.getBodyId(i));
+      }
+    }
+    writer.join();
+  }
+}
@@ -0,0 +1,112 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.level.Level;
+import lemondead.projectileflight.level.objects.Cannon;
+import lemondead.projectileflight.level.objects.Wall;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticleBackendTest {
+  private static final float timeStep = 1 / 120f;
+
+  private static ParticleBackend backend(CollisionLog log) {
+    return new ParticleBackend(PhysicsConfig.DEFAULT, log, () -> 0);
+  }
+
+  private static Level level(int shotCount) {
+    Level level = new Level();
+    for (int i = 0; i < 3; i++) {
+      Cannon cannon = new Cannon();
+      cannon.setPos(Vec2.of(i * 7, 1));
+      cannon.setAngle(0.5 + i * 0.15);
+      cannon.setInitialSpeed(12 + i);
+      level.addObject(cannon, false);
+    }
+    for (int i = 0; i < 3; i++) {
+      Wall wall = new Wall();
+      wall.setPos(Vec2.of(20 + i * 9, 3));
+      level.addObject(wall, false);
+    }
+    level.setPhysicsConfig(PhysicsConfig.DEFAULT.withBackend(PhysicsConfig.Backend.PARTICLES)
+                                                .withSalvo(shotCount, 0.1, Math.toRadians(10)));
+    return level;
+  }
+
+  @Test
+  void ballFallsOntoTheGroundAndSleeps() {
+    CollisionLog log = new CollisionLog();
+    ParticleBackend backend = backend(log);
+    int ball = backend.addBall(0, 5, 0, 0, 0.5f, 1000, 0.25f, 0, false, 0);
+    assertEquals(0, ball);
+    assertFalse(backend.isSettled());
+    for (int i = 0; i < 600 && !backend.isSettled(); i++) {
+      backend.step(timeStep);
+    }
+    assertTrue(backend.isSettled());
+    assertEquals(0.5, backend.getY(0), 0.01);
+    assertEquals(0, backend.getX(0), 1E-9);
+    assertEquals(1, log.size());
+    assertEquals(0, log.getBodyId(0));
+    assertEquals(1, log.getNormalY(0), 1E-6);
+    assertThrows(IndexOutOfBoundsException.class, () -> backend.getX(1));
+  }
+
+  @Test
+  void boxesDeflectBalls() {
+    CollisionLog log = new CollisionLog();
+    ParticleBackend backend = backend(log);
+    backend.addBox(5, 0, 0, 0.5f, 10, 0, 0, 1, 0);
+    backend.addBall(0, 3, 10, 0, 0.5f, 1000, 0.25f, 0.5f, false, 0);
+    for (int i = 0; i < 60; i++) {
+      backend.step(timeStep);
+      assertTrue(backend.getX(0) <= 4, "ball went through the box");
+    }
+    assertEquals(-1, log.getNormalX(0), 1E-6);
+  }
+
+  @Test
+  void ballsWaitForTheirLaunchTick() {
+    ParticleBackend backend = backend(new CollisionLog());
+    backend.addBall(0, 5, 3, 0, 0.5f, 1000, 0.25f, 0, false, 0);
+    backend.addBall(0, 5, 3, 0, 0.5f, 1000, 0.25f, 0, false, 10);
+    for (long tick = 0; tick < 10; tick++) {
+      backend.launch(tick);
+      backend.step(timeStep);
+    }
+    assertEquals(0, backend.getX(1));
+    assertEquals(5, backend.getY(1));
+    backend.launch(10);
+    backend.step(timeStep);
+    assertTrue(backend.getX(1) > 0);
+  }
+
+  @Test
+  void loadingACheckpointReproducesTheRun() {
+    SimulationRunner simulation = new SimulationRunner(level(3));
+    assertTrue(simulation.getBackend() instanceof PartitionedBackend);
+    simulation.step(200);
+    Checkpoint checkpoint = simulation.checkpoint();
+    simulation.step(400);
+    float[] expected = simulation.getBackend().saveBodies();
+    int collisions = simulation.getCollisionLog().size();
+    assertTrue(collisions > checkpoint.getCollisionCount());
+
+    simulation.restore(checkpoint, simulation.getCollisionLog());
+    simulation.step(400);
+    assertArrayEquals(expected, simulation.getBackend().saveBodies());
+    assertEquals(collisions, simulation.getCollisionLog().size());
+  }
+
+  @Test
+  void levelBuildsOneBallPerShot() {
+    Level level = level(4);
+    SimulationRunner simulation = new SimulationRunner(level);
+    assertEquals(12, simulation.getBackend().getBodyCount());
+    simulation.step(1200);
+    for (int i = 0; i < 12; i++) {
+      assertTrue(simulation.getBackend().getY(i) >= 0.4, "ball " + i + " fell through the ground");
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.level.Level;
+import lemondead.projectileflight.level.objects.Cannon;
+import lemondead.projectileflight.level.objects.Wall;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static lemondead.projectileflight.simulation.TimelineTest.assertSameLog;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedBackendTest {
+  private static final int ticks = 1500;
+
+  /**
+   * Cannons far enough apart that their balls never meet, each with a wall in range and one far above.
+   */
+  private static Level separateCannons(PhysicsConfig config) {
+    Level level = new Level();
+    for (int i = 0; i < 5; i++) {
+      Cannon cannon = new Cannon();
+      cannon.setPos(Vec2.of(i * 400, 1));
+      cannon.setAngle(0.6 + i * 0.1);
+      cannon.setInitialSpeed(12 + i);
+      level.addObject(cannon, false);
+      Wall wall = new Wall();
+      wall.setPos(Vec2.of(i * 400 + 14, 3));
+      level.addObject(wall, false);
+      Wall ceiling = new Wall();
+      ceiling.setPos(Vec2.of(i * 400 + 5, 400));
+      level.addObject(ceiling, false);
+    }
+    level.setPhysicsConfig(config.withSalvo(3, 0.25, Math.toRadians(20)));
+    return level;
+  }
+
+  private static void run(PhysicsBackend backend, Level level, float[][] bodies) {
+    level.collectBodies(backend);
+    PhysicsQuality quality = level.getPhysicsConfig().getQuality();
+    backend.setQuality(quality);
+    for (int tick = 0; tick < ticks; tick++) {
+      backend.launch(tick);
+      for (int i = 0; i < quality.getSubSteps(); i++) {
+        backend.step(quality.getSubStep());
+      }
+      bodies[tick] = backend.saveBodies();
+    }
+  }
+
+  private static void assertSameRun(PhysicsConfig shared, PhysicsConfig partitioned, ForkJoinPool pool) {
+    Level level = separateCannons(shared);
+    CollisionLog expected = new CollisionLog();
+    float[][] expectedBodies = new float[ticks][];
+    run(PhysicsBackend.createWorld(level.getPhysicsConfig(), expected, () -> 0), level, expectedBodies);
+
+    Level split = separateCannons(partitioned);
+    CollisionLog actual = new CollisionLog();
+    float[][] actualBodies = new float[ticks][];
+    run(new PartitionedBackend(split.getPhysicsConfig(), actual, () -> 0, pool), split, actualBodies);
+
+    for (int tick = 0; tick < ticks; tick++) {
+      assertArrayEquals(expectedBodies[tick], actualBodies[tick], "bodies differ at tick " + tick);
+    }
+    assertTrue(expected.size() > 0);
+    assertSameLog(expected, actual);
+  }
+
+  @Test
+  void perCannonWorldsMatchASharedWorld() {
+    PhysicsConfig shared = PhysicsConfig.DEFAULT.withWorlds(PhysicsConfig.Worlds.SHARED);
+    assertSameRun(shared, shared.withWorlds(PhysicsConfig.Worlds.PER_CANNON), ForkJoinPool.commonPool());
+  }
+
+  @Test
+  void particleWorldsMatchASharedWorld() {
+    PhysicsConfig shared = PhysicsConfig.DEFAULT.withBackend(PhysicsConfig.Backend.PARTICLES)
+                                                .withWorlds(PhysicsConfig.Worlds.SHARED);
+    assertSameRun(shared, shared.withWorlds(PhysicsConfig.Worlds.AUTO), ForkJoinPool.commonPool());
+  }
+
+  @Test
+  void parallelSteppingMatchesASharedWorld() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      PhysicsConfig shared = PhysicsConfig.DEFAULT.withWorlds(PhysicsConfig.Worlds.SHARED).withParallelThreshold(0);
+      assertSameRun(shared, shared.withWorlds(PhysicsConfig.Worlds.PER_CANNON), pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package lemondead.projectileflight.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+  private static final double position = 1 / ReplayFormat.POSITION_SCALE;
+  private static final double angle = 1 / ReplayFormat.ANGLE_SCALE;
+  private static final float timeStep = SimulationRunner.TIME_STEP;
+
+  @Test
+  void varintsAndZigzagRoundTrip() {
+    long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 300, -300, 1L << 35, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+    ReplayFormat.Encoder encoder = new ReplayFormat.Encoder();
+    for (long value : values) {
+      encoder.putVarint(value);
+      encoder.putSigned(value);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(encoder.length());
+    encoder.writeTo(buffer);
+    buffer.flip();
+    for (long value : values) {
+      assertEquals(value, ReplayFormat.readVarint(buffer));
+      assertEquals(value, ReplayFormat.readSigned(buffer));
+    }
+    assertFalse(buffer.hasRemaining());
+    assertEquals(1, varintLength(ReplayFormat.zigzag(-64)));
+    assertEquals(2, varintLength(ReplayFormat.zigzag(64)));
+  }
+
+  private static int varintLength(long value) {
+    ReplayFormat.Encoder encoder = new ReplayFormat.Encoder();
+    encoder.putVarint(value);
+    return encoder.length();
+  }
+
+  /**
+   * Records a run that seeks back with a forked log and later adds a ball, so the replay holds delta frames with small, large
+   * and negative residuals as well as keyframes after both kinds of discontinuity.
+   */
+  @Test
+  void readerReturnsWhatTheRecorderGot() throws IOException {
+    List<WorldSnapshot> frames = new ArrayList<>();
+    List<Boolean> keyframes = new ArrayList<>();
+    CollisionLog log = new CollisionLog();
+    double worldTime = 0;
+    for (long tick = 0; tick < 40; tick++) {
+      frames.add(frame(tick, worldTime, 3, log, 0));
+      keyframes.add(tick == 0);
+      worldTime += timeStep;
+    }
+
+    WorldSnapshot seekTarget = frames.get(10);
+    CollisionLog forked = log.copy(seekTarget.getCollisionCount());
+    worldTime = seekTarget.getWorldTime();
+    for (long tick = 10; tick < 30; tick++) {
+      frames.add(frame(tick, worldTime, 3, forked, 1));
+      keyframes.add(tick == 10);
+      worldTime += timeStep;
+    }
+    for (long tick = 30; tick < 50; tick++) {
+      frames.add(frame(tick, worldTime, 4, forked, 1));
+      keyframes.add(tick == 30);
+      worldTime += timeStep;
+    }
+
+    Path path = Files.createTempFile("replay", ".pfr");
+    try {
+      try (ReplayRecorder recorder = new ReplayRecorder(path, 0x1234_5678_9ABC_DEF0L)) {
+        for (WorldSnapshot frame : frames) {
+          assertTrue(recorder.record(frame));
+        }
+      }
+      ReplayReader reader = new ReplayReader(path);
+      assertEquals(timeStep, reader.getTimeStep());
+      assertEquals(0x1234_5678_9ABC_DEF0L, reader.getLevelHash());
+      for (int i = 0; i < frames.size(); i++) {
+        assertTrue(reader.hasNext());
+        assertSameFrame(frames.get(i), i > 0 ? frames.get(i - 1) : null, keyframes.get(i), reader.next(), i);
+      }
+      assertFalse(reader.hasNext());
+
+      reader.rewind();
+      assertSameFrame(frames.get(0), null, true, reader.next(), 0);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Builds a frame whose values are all representable in the replay's fixed point. Ball 0 rests, ball 1 moves with some
+   * jitter and jumps back at tick 20, ball 2 falls from far above, and ball 3 spins. A collision is logged every 10 ticks.
+   */
+  private static WorldSnapshot frame(long tick, double worldTime, int bodyCount, CollisionLog log, int variant) {
+    double[] bodies = new double[bodyCount * WorldSnapshot.stride];
+    set(bodies, 0, 100, 2, 0, 0, 0, 0);
+    long jitter = tick * 7 % 3 - 1 + (tick >= 20 ? -3000 : 0);
+    set(bodies, 1, 5 + tick * 0.5 * (variant + 1) + jitter * position, 3, 0.5, -2 * position, -tick * 16 * angle, -16 * angle);
+    set(bodies, 2, -40, 1e6 - tick * tick * 0.25, 0, -tick * 0.5, 0, 0);
+    if (bodyCount > 3) {
+      set(bodies, 3, 7, 8, 0, 0, tick * (tick + 1) / 2 * angle, 3 * angle);
+    }
+    if (tick % 10 == 5) {
+      log.add(tick * position, -1.5, 0.6, -0.8, worldTime - 2 * timeStep, (int) (tick / 10 % bodyCount) - variant);
+    }
+    return new WorldSnapshot(worldTime, tick, bodies, log, log.size(), 0, 0);
+  }
+
+  private static void set(double[] bodies, int i, double x, double y, double velocityX, double velocityY, double angle,
+                          double angularVelocity) {
+    int offset = i * WorldSnapshot.stride;
+    bodies[offset] = x;
+    bodies[offset + 1] = y;
+    bodies[offset + 2] = velocityX;
+    bodies[offset + 3] = velocityY;
+    bodies[offset + 4] = angle;
+    bodies[offset + 5] = angularVelocity;
+  }
+
+  /**
+   * Keyframes store velocities, delta frames derive them from the last two positions.
+   */
+  private static void assertSameFrame(WorldSnapshot expected, WorldSnapshot previous, boolean keyframe, WorldSnapshot actual,
+                                      int frame) {
+    String message = "frame " + frame;
+    assertEquals(expected.getTick(), actual.getTick(), message);
+    assertEquals(expected.getWorldTime(), actual.getWorldTime(), 1e-9, message);
+    assertEquals(expected.getBodyCount(), actual.getBodyCount(), message);
+    for (int i = 0; i < expected.getBodyCount(); i++) {
+      String body = message + ", body " + i;
+      assertEquals(expected.getX(i), actual.getX(i), body);
+      assertEquals(expected.getY(i), actual.getY(i), body);
+      assertEquals(expected.getAngle(i), actual.getAngle(i), body);
+      if (keyframe) {
+        assertEquals(expected.getVelocityX(i), actual.getVelocityX(i), body);
+        assertEquals(expected.getVelocityY(i), actual.getVelocityY(i), body);
+        assertEquals(expected.getAngularVelocity(i), actual.getAngularVelocity(i), body);
+      } else {
+        assertEquals((expected.getX(i) - previous.getX(i)) / timeStep, actual.getVelocityX(i), 1e-6, body);
+        assertEquals((expected.getY(i) - previous.getY(i)) / timeStep, actual.getVelocityY(i), 1e-6, body);
+        assertEquals((expected.getAngle(i) - previous.getAngle(i)) / timeStep, actual.getAngularVelocity(i), 1e-6, body);
+      }
+    }
+
+    CollisionLog expectedLog = expected.getCollisions();
+    CollisionLog actualLog = actual.getCollisions();
+    assertEquals(expected.getCollisionCount(), actual.getCollisionCount(), message);
+    for (int i = 0; i < expected.getCollisionCount(); i++) {
+      String collision = message + ", collision " + i;
+      assertEquals(expectedLog.getX(i), actualLog.getX(i), collision);
+      assertEquals(expectedLog.getY(i), actualLog.getY(i), collision);
+      assertEquals(expectedLog.getNormalX(i), actualLog.getNormalX(i), 1 / ReplayFormat.NORMAL_SCALE, collision);
+      assertEquals(expectedLog.getNormalY(i), actualLog.getNormalY(i), 1 / ReplayFormat.NORMAL_SCALE, collision);
+      assertEquals(expectedLog.getTime(i), actualLog.getTime(i), 1e-9, collision);
+      assertEquals(expectedLog.getBodyId(i), actualLog.getBodyId(i), collision);
+    }
+  }
+}
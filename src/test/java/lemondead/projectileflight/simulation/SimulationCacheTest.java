@@ -0,0 +1,74 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.projectileflight.level.Level;
+import org.junit.jupiter.api.Test;
+
+import static lemondead.projectileflight.simulation.TimelineTest.assertSameRun;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationCacheTest {
+  private static final int interval = 120;
+
+  private static SimulationRecord simulate(Level level, long ticks) {
+    Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+    timeline.step(ticks);
+    return timeline.record();
+  }
+
+  @Test
+  void recordsDontChangeWhenTheTimelineGoesOn() {
+    Level level = TimelineTest.level(PhysicsConfig.DEFAULT);
+    Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+    timeline.step(600);
+    SimulationRecord record = timeline.record();
+    long size = record.getSizeInBytes();
+    int collisions = record.getCollisions().size();
+    timeline.step(600);
+
+    assertEquals(600, record.getFrontierTick());
+    assertEquals(size, record.getSizeInBytes());
+    assertEquals(collisions, record.getCollisions().size());
+    Timeline restarted = new Timeline(record, new SimulationRunner(level.copy()));
+    restarted.seek(550);
+    SimulationRunner straight = new SimulationRunner(level);
+    straight.step(550);
+    assertSameRun(straight, restarted.getSimulation());
+  }
+
+  @Test
+  void sizeCountsCheckpointsAndCollisions() {
+    SimulationRecord record = simulate(TimelineTest.level(PhysicsConfig.DEFAULT), 1200);
+    long checkpointBytes = 0;
+    for (Checkpoint checkpoint : record.getCheckpoints().values()) {
+      checkpointBytes += checkpoint.getSizeInBytes();
+    }
+    assertTrue(record.getCollisions().size() > 0);
+    assertTrue(record.getSizeInBytes() >= checkpointBytes + (long) record.getCollisions().size() * CollisionLog.BYTES_PER_ENTRY);
+  }
+
+  @Test
+  void keepsTheFurtherRecord() {
+    Level level = TimelineTest.level(PhysicsConfig.DEFAULT);
+    SimulationRecord shorter = simulate(level, 300);
+    SimulationRecord longer = simulate(level, 900);
+    SimulationCache cache = new SimulationCache(Long.MAX_VALUE);
+    cache.put(1, longer);
+    cache.put(1, shorter);
+    assertSame(longer, cache.get(1));
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedOverBudget() {
+    Level level = TimelineTest.level(PhysicsConfig.DEFAULT);
+    SimulationRecord record = simulate(level, 600);
+    SimulationCache cache = new SimulationCache(record.getSizeInBytes() * 2);
+    cache.put(1, record);
+    cache.put(2, simulate(level, 600));
+    cache.get(1);
+    cache.put(3, simulate(level, 600));
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(1));
+    assertFalse(cache.contains(2));
+    assertTrue(cache.contains(3));
+  }
+}
@@ -0,0 +1,53 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.projectileflight.level.Level;
+import org.junit.jupiter.api.Test;
+
+import static lemondead.projectileflight.simulation.TimelineTest.assertSameRun;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationRunnerTest {
+  private static final PhysicsConfig[] configs = {
+      PhysicsConfig.DEFAULT,
+      PhysicsConfig.DEFAULT.withWorlds(PhysicsConfig.Worlds.PER_CANNON),
+      PhysicsConfig.DEFAULT.withBackend(PhysicsConfig.Backend.PARTICLES),
+      PhysicsConfig.DEFAULT.withBackend(PhysicsConfig.Backend.PARTICLES).withWorlds(PhysicsConfig.Worlds.SHARED),
+  };
+
+  @Test
+  void resetMatchesAFreshBuild() {
+    for (PhysicsConfig config : configs) {
+      Level level = TimelineTest.level(config);
+      SimulationRunner fresh = new SimulationRunner(level);
+      Checkpoint start = fresh.checkpoint();
+
+      SimulationRunner reset = new SimulationRunner(level);
+      PhysicsBackend backend = reset.getBackend();
+      reset.step(900);
+      reset.restore(start, fresh.getCollisionLog());
+      assertSame(backend, reset.getBackend());
+      assertSameRun(fresh, reset);
+
+      fresh.step(900);
+      reset.step(900);
+      assertTrue(fresh.getCollisionLog().size() > 0);
+      assertSameRun(fresh, reset);
+    }
+  }
+
+  @Test
+  void restoringTheCurrentLogKeepsAppendingToIt() {
+    Level level = TimelineTest.level(PhysicsConfig.DEFAULT);
+    SimulationRunner simulation = new SimulationRunner(level);
+    simulation.step(300);
+    Checkpoint checkpoint = simulation.checkpoint();
+    CollisionLog log = simulation.getCollisionLog();
+    simulation.restore(checkpoint, log);
+    simulation.step(600);
+    assertSame(log, simulation.getCollisionLog());
+
+    SimulationRunner straight = new SimulationRunner(level);
+    straight.step(900);
+    assertSameRun(straight, simulation);
+  }
+}
@@ -0,0 +1,71 @@
+package lemondead.projectileflight.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepPacerTest {
+  private static final double timeStep = 1 / 120.0;
+  private static final long tick = 8_333_333;
+
+  @Test
+  void firstWakeupOnlyStartsTheClock() {
+    StepPacer pacer = new StepPacer(timeStep, tick, 8);
+    assertEquals(0, pacer.advance(1_000_000_000L, 1));
+    assertEquals(0.0, pacer.getAccumulator());
+  }
+
+  @Test
+  void stepsFollowElapsedTimeAndKeepTheRemainder() {
+    StepPacer pacer = new StepPacer(timeStep, tick, 8);
+    long now = 0;
+    pacer.advance(now, 1);
+    int steps = 0;
+    for (int i = 0; i < 120; i++) {
+      now += 16_666_667;
+      steps += pacer.advance(now, 1);
+    }
+    assertEquals(240, steps, 1);
+    assertTrue(pacer.getAccumulator() >= 0 && pacer.getAccumulator() < timeStep);
+    assertEquals(0, pacer.getDroppedTicks());
+  }
+
+  @Test
+  void speedScalesTheSteps() {
+    StepPacer pacer = new StepPacer(timeStep, tick, 64);
+    pacer.advance(0, 1);
+    assertEquals(4, pacer.advance(tick * 2 + 1000, 2));
+    assertEquals(1, pacer.advance(tick * 4 + 2000, 0.5));
+  }
+
+  @Test
+  void longStallsAreCappedAndCounted() {
+    StepPacer pacer = new StepPacer(timeStep, tick, 8);
+    pacer.advance(0, 1);
+    assertEquals(8, pacer.advance(1_000_000_000L, 1));
+    assertEquals(112, pacer.getDroppedTicks());
+    assertEquals(1, pacer.getLateWakeups());
+    assertEquals(0.0, pacer.getAccumulator());
+  }
+
+  @Test
+  void resetDropsTheRemainder() {
+    StepPacer pacer = new StepPacer(timeStep, tick, 8);
+    pacer.advance(0, 1);
+    pacer.advance(tick + tick / 2, 1);
+    assertTrue(pacer.getAccumulator() > 0);
+    pacer.reset(5 * tick);
+    assertEquals(0.0, pacer.getAccumulator());
+    assertEquals(1, pacer.advance(6 * tick + 10, 1));
+  }
+
+  @Test
+  void forSpeedLimitsTheWakeupRate() {
+    StepPacer slow = StepPacer.forSpeed(timeStep, 1, 1000);
+    assertEquals(tick, slow.getWakeupPeriod());
+    StepPacer fast = StepPacer.forSpeed(timeStep, 100, 250);
+    assertEquals(4_000_000, fast.getWakeupPeriod());
+    fast.advance(0, 100);
+    assertEquals(49, fast.advance(4_100_000, 100));
+  }
+}
@@ -0,0 +1,100 @@
+package lemondead.projectileflight.simulation;
+
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.level.Level;
+import lemondead.projectileflight.level.objects.Cannon;
+import lemondead.projectileflight.level.objects.Wall;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineTest {
+  private static final int interval = 120;
+
+  static Level level(PhysicsConfig config) {
+    Level level = new Level();
+    for (int i = 0; i < 6; i++) {
+      Cannon cannon = new Cannon();
+      cannon.setPos(Vec2.of(i * 7, 1));
+      cannon.setAngle(0.5 + i * 0.15);
+      cannon.setInitialSpeed(12 + i);
+      level.addObject(cannon, false);
+    }
+    for (int i = 0; i < 4; i++) {
+      Wall wall = new Wall();
+      wall.setPos(Vec2.of(30 + i * 9, 3));
+      level.addObject(wall, false);
+    }
+    level.setPhysicsConfig(config.withSalvo(3, 0.25, Math.toRadians(20)));
+    return level;
+  }
+
+  static void assertSameRun(SimulationRunner expected, SimulationRunner actual) {
+    assertEquals(expected.getTick(), actual.getTick());
+    assertEquals(expected.getWorldTime(), actual.getWorldTime());
+    assertArrayEquals(expected.getBackend().saveBodies(), actual.getBackend().saveBodies(), "bodies differ");
+    assertArrayEquals(expected.getBackend().saveContacts(), actual.getBackend().saveContacts(), "contacts differ");
+    assertSameLog(expected.getCollisionLog(), actual.getCollisionLog());
+  }
+
+  static void assertSameLog(CollisionLog expected, CollisionLog actual) {
+    assertEquals(expected.size(), actual.size(), "collision count");
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getX(i), actual.getX(i), "x of collision " + i);
+      assertEquals(expected.getY(i), actual.getY(i), "y of collision " + i);
+      assertEquals(expected.getNormalX(i), actual.getNormalX(i), "normal of collision " + i);
+      assertEquals(expected.getNormalY(i), actual.getNormalY(i), "normal of collision " + i);
+      assertEquals(expected.getTime(i), actual.getTime(i), "time of collision " + i);
+      assertEquals(expected.getBodyId(i), actual.getBodyId(i), "body of collision " + i);
+    }
+  }
+
+  private static SimulationRunner straightRun(Level level, long ticks) {
+    SimulationRunner simulation = new SimulationRunner(level);
+    simulation.step(ticks);
+    return simulation;
+  }
+
+  @Test
+  void checkpointsDontDisturbTheRun() {
+    Level level = level(PhysicsConfig.DEFAULT);
+    Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+    timeline.step(1500);
+    assertTrue(timeline.getCheckpointCount() > 10);
+    SimulationRunner straight = straightRun(level, 1500);
+    assertTrue(straight.getCollisionLog().size() > 0);
+    assertSameRun(straight, timeline.getSimulation());
+  }
+
+  @Test
+  void seekingMatchesAStraightRun() {
+    Level level = level(PhysicsConfig.DEFAULT);
+    Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+    timeline.step(1500);
+    for (long tick : new long[] { 777, 240, 1499, 0, 1, 1200, 30 }) {
+      timeline.seek(tick);
+      assertSameRun(straightRun(level, tick), timeline.getSimulation());
+    }
+  }
+
+  @Test
+  void seekingWorksAcrossQualityProfiles() {
+    for (PhysicsQuality quality : PhysicsQuality.values()) {
+      Level level = level(PhysicsConfig.DEFAULT.withQuality(quality));
+      Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+      timeline.step(900);
+      timeline.seek(500);
+      assertSameRun(straightRun(level, 500), timeline.getSimulation());
+    }
+  }
+
+  @Test
+  void forkedTimelineReplaysTheRecordedRun() {
+    Level level = level(PhysicsConfig.DEFAULT);
+    Timeline timeline = new Timeline(new SimulationRunner(level), interval, 64 << 20);
+    timeline.step(1000);
+    Timeline fork = timeline.fork(new SimulationRunner(level.copy()));
+    fork.seek(850);
+    assertSameRun(straightRun(level, 850), fork.getSimulation());
+  }
+}
@@ -0,0 +1,64 @@
+package lemondead.projectileflight.utils;
+
+import lemondead.game.engine.util.vector.Vec2;
+import lemondead.projectileflight.level.Level;
+import lemondead.projectileflight.level.objects.Cannon;
+import lemondead.projectileflight.level.objects.Wall;
+import lemondead.projectileflight.simulation.PhysicsQuality;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+  private static Level level() {
+    Level level = new Level();
+    Cannon cannon = new Cannon();
+    cannon.setPos(Vec2.of(1, 2));
+    level.addObject(cannon, false);
+    Wall wall = new Wall();
+    wall.setPos(Vec2.of(10, 3));
+    level.addObject(wall, false);
+    return level;
+  }
+
+  @Test
+  void mixDependsOnOrderAndValue() {
+    long ab = ContentHash.mix(ContentHash.mix(ContentHash.SEED, 1L), 2L);
+    long ba = ContentHash.mix(ContentHash.mix(ContentHash.SEED, 2L), 1L);
+    assertNotEquals(ab, ba);
+    assertEquals(ab, ContentHash.mix(ContentHash.mix(ContentHash.SEED, 1L), 2L));
+    assertNotEquals(ContentHash.mix(ContentHash.SEED, 0.0), ContentHash.mix(ContentHash.SEED, -0.0));
+    assertNotEquals(ContentHash.mix(ContentHash.SEED, true), ContentHash.mix(ContentHash.SEED, false));
+  }
+
+  @Test
+  void equalContentHashesEqually() {
+    Level level = level();
+    assertEquals(level.contentHash(), level().contentHash());
+    assertEquals(level.contentHash(), level.copy().contentHash());
+  }
+
+  @Test
+  void editsChangeTheHash() {
+    Level level = level();
+    long hash = level.contentHash();
+    Wall wall = (Wall) level.getObjects().get(1);
+    wall.setPos(Vec2.of(10, 3.5));
+    long moved = level.contentHash();
+    assertNotEquals(hash, moved);
+    wall.setPos(Vec2.of(10, 3));
+    assertEquals(hash, level.contentHash());
+
+    level.setPhysicsConfig(level.getPhysicsConfig().withQuality(PhysicsQuality.ACCURATE));
+    assertNotEquals(hash, level.contentHash());
+  }
+
+  @Test
+  void objectOrderMatters() {
+    Level level = level();
+    Level swapped = new Level();
+    swapped.addObject(level.getObjects().get(1).copy(), false);
+    swapped.addObject(level.getObjects().get(0).copy(), false);
+    assertNotEquals(level.contentHash(), swapped.contentHash());
+  }
+}